@@ -0,0 +1,108 @@
+package asagiribeta.voxelmind.client.agent;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChatCompletionDecoder} against the String + JsonElement tree path it replaced ({@link TreeParseDecoder}), from
+ * the raw response bytes to decoded actions. Fixtures: a plain 342-byte reply, and 11 KB and 430 KB replies carrying
+ * token logprobs (the bulk of the envelope the decoder skips). Run with {@code ./gradlew :common:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ChatCompletionDecoderBenchmark {
+    static final String ACTIONS = "{\"navigation\":{\"dx\":2,\"dy\":0,\"dz\":-1},\"mouse\":{\"left\":\"TAP\",\"right\":\"NONE\"},"
+            + "\"chat\":{\"message\":\"Going to the oak tree\"}}";
+    // A chatty reply: long enough that per-token logprobs dominate the envelope
+    static final String CHATTY = "{\"navigation\":{\"dx\":1,\"dy\":0,\"dz\":3},\"mouse\":{\"left\":\"HOLD\",\"right\":\"NONE\"},"
+            + "\"target\":{\"blockTag\":\"minecraft:logs\"},\"chat\":{\"message\":\""
+            + "I can see a birch forest to the north-east and a small river on the left. ".repeat(15).trim() + "\"}}";
+
+    @Param({"reply_342b", "logprobs_11kb", "logprobs_430kb"})
+    public String fixture;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        body = switch (fixture) {
+            case "reply_342b" -> reply(ACTIONS, -1);
+            case "logprobs_11kb" -> reply(ACTIONS, 4);
+            case "logprobs_430kb" -> reply(CHATTY, 20);
+            default -> throw new IllegalArgumentException(fixture);
+        };
+        // Both paths must agree before their timings mean anything
+        if (!decoder().equals(treeParse())) throw new IllegalStateException("decoders disagree on " + fixture);
+    }
+
+    @Benchmark
+    public ActionSchema.Actions decoder() throws IOException {
+        ChatCompletionDecoder.Envelope env = ChatCompletionDecoder.decodeEnvelope(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+        return ChatCompletionDecoder.decodeActions(env.content());
+    }
+
+    @Benchmark
+    public ActionSchema.Actions treeParse() {
+        return TreeParseDecoder.decodeActions(TreeParseDecoder.decodeEnvelope(body).content());
+    }
+
+    /**
+     * A chat.completions reply with {@code content}. {@code topLogprobs} &lt; 0 leaves logprobs out; otherwise every
+     * three characters of content count as a token with that many alternatives, as {@code logprobs: true} returns them.
+     */
+    static byte[] reply(String content, int topLogprobs) {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("content", content);
+        JsonObject choice = new JsonObject();
+        choice.add("message", message);
+        if (topLogprobs >= 0) {
+            JsonArray tokens = new JsonArray();
+            for (int i = 0; i < content.length(); i += 3) {
+                JsonObject token = logprob(content.substring(i, Math.min(content.length(), i + 3)), -0.0001 * i);
+                JsonArray top = new JsonArray();
+                for (int k = 0; k < topLogprobs; k++) top.add(logprob(content.substring(i, Math.min(content.length(), i + 1 + k % 3)), -1.5 - k));
+                token.add("top_logprobs", top);
+                tokens.add(token);
+            }
+            JsonObject logprobs = new JsonObject();
+            logprobs.add("content", tokens);
+            choice.add("logprobs", logprobs);
+        }
+        choice.addProperty("finish_reason", "stop");
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+        JsonObject usage = new JsonObject();
+        usage.addProperty("prompt_tokens", 1200);
+        usage.addProperty("completion_tokens", content.length() / 3);
+        usage.addProperty("total_tokens", 1200 + content.length() / 3);
+        JsonObject root = new JsonObject();
+        root.addProperty("id", "chatcmpl-0001");
+        root.addProperty("model", "gpt-4o-mini");
+        root.add("choices", choices);
+        root.add("usage", usage);
+        return new Gson().toJson(root).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static JsonObject logprob(String token, double logprob) {
+        JsonObject o = new JsonObject();
+        o.addProperty("token", token);
+        o.addProperty("logprob", logprob);
+        JsonArray bytes = new JsonArray();
+        for (byte b : token.getBytes(StandardCharsets.UTF_8)) bytes.add(b & 0xFF);
+        o.add("bytes", bytes);
+        return o;
+    }
+}
@@ -0,0 +1,189 @@
+package asagiribeta.voxelmind.client.agent;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Benchmark baseline: the reply decoding HttpAgentClient did before {@link ChatCompletionDecoder}. The body is collected
+ * into a String (as {@code BodyHandlers.ofString} did), parsed into a JsonElement tree, and the content string is parsed
+ * into a second tree that the field parsers walk. Kept as it was apart from dropping logging; it predates plans and
+ * macros, so those are never set.
+ */
+final class TreeParseDecoder {
+    private TreeParseDecoder() {}
+
+    /** Assistant content and total tokens, or null content when the reply has none. */
+    record Reply(String content, long totalTokens) {}
+
+    static Reply decodeEnvelope(byte[] body) {
+        JsonElement je = JsonParser.parseString(new String(body, StandardCharsets.UTF_8));
+        return new Reply(extractMessageContent(je), extractTotalTokens(je));
+    }
+
+    static ActionSchema.Actions decodeActions(String content) {
+        try {
+            return parseActionsFlexible(JsonParser.parseString(content));
+        } catch (Exception e) {
+            String extracted = extractFirstJsonObject(content);
+            if (extracted != null) {
+                try { return parseActionsFlexible(JsonParser.parseString(extracted)); } catch (Exception ignored) {}
+            }
+            return ActionSchema.Actions.none();
+        }
+    }
+
+    private static String extractMessageContent(JsonElement je) {
+        if (je.isJsonObject()) {
+            JsonObject obj = je.getAsJsonObject();
+            if (obj.has("choices") && obj.get("choices").isJsonArray() && obj.getAsJsonArray("choices").size() > 0) {
+                JsonObject choice0 = obj.getAsJsonArray("choices").get(0).getAsJsonObject();
+                JsonObject msg = choice0.has("message") && choice0.get("message").isJsonObject()
+                        ? choice0.getAsJsonObject("message") : null;
+                if (msg != null && msg.has("content")) {
+                    return msg.get("content").getAsString();
+                }
+            }
+        }
+        return null;
+    }
+
+    /** usage.total_tokens, or 0 when the reply does not report it. */
+    private static long extractTotalTokens(JsonElement je) {
+        if (!je.isJsonObject()) return 0;
+        JsonElement usage = je.getAsJsonObject().get("usage");
+        if (usage == null || !usage.isJsonObject()) return 0;
+        JsonElement total = usage.getAsJsonObject().get("total_tokens");
+        return total != null && total.isJsonPrimitive() && total.getAsJsonPrimitive().isNumber() ? total.getAsLong() : 0;
+    }
+
+    private static String extractFirstJsonObject(String s) {
+        int start = s.indexOf('{');
+        int end = s.lastIndexOf('}');
+        if (start >= 0 && end > start) return s.substring(start, end + 1);
+        return null;
+    }
+
+    private static ActionSchema.Actions parseActionsFlexible(JsonElement je) {
+        if (!(je instanceof JsonObject root)) return ActionSchema.Actions.none();
+        // chat may be object {message:".."} OR primitive string
+        ActionSchema.Chat chat = parseChatFlexible(root.get("chat"));
+        ActionSchema.Navigation nav = parseNavigationFlexible(root.get("navigation"));
+        ActionSchema.View view = parseViewFlexible(root.get("view"));
+        ActionSchema.Mouse mouse = parseMouseFlexible(root.get("mouse"));
+        Optional<ActionSchema.Target> target = parseTargetFlexible(root.get("target"));
+        return new ActionSchema.Actions(chat, nav, view, mouse, target);
+    }
+
+    private static ActionSchema.Chat parseChatFlexible(JsonElement el) {
+        if (el == null || el.isJsonNull()) return ActionSchema.Chat.none();
+        if (el.isJsonObject()) {
+            JsonObject o = el.getAsJsonObject();
+            if (o.has("message") && !o.get("message").isJsonNull()) {
+                String m = o.get("message").getAsString();
+                if (m != null && !m.isBlank()) return new ActionSchema.Chat(Optional.of(m.trim()));
+            }
+            return ActionSchema.Chat.none();
+        }
+        if (el.isJsonPrimitive()) {
+            try {
+                String m = el.getAsString();
+                if (m != null && !m.isBlank()) return new ActionSchema.Chat(Optional.of(m.trim()));
+            } catch (Exception ignored) {}
+        }
+        return ActionSchema.Chat.none();
+    }
+
+    private static ActionSchema.Navigation parseNavigationFlexible(JsonElement el) {
+        if (el == null || el.isJsonNull()) return ActionSchema.Navigation.none();
+        if (!el.isJsonObject()) return ActionSchema.Navigation.none();
+        JsonObject o = el.getAsJsonObject();
+        Optional<Integer> dx = o.has("dx") && !o.get("dx").isJsonNull() ? safeInt(o.get("dx")) : Optional.empty();
+        Optional<Integer> dy = o.has("dy") && !o.get("dy").isJsonNull() ? safeInt(o.get("dy")) : Optional.empty();
+        Optional<Integer> dz = o.has("dz") && !o.get("dz").isJsonNull() ? safeInt(o.get("dz")) : Optional.empty();
+        return new ActionSchema.Navigation(dx, dy, dz);
+    }
+
+    private static Optional<Integer> safeInt(JsonElement e) {
+        try {
+            if (e != null && e.isJsonPrimitive()) {
+                JsonPrimitive p = e.getAsJsonPrimitive();
+                if (p.isNumber()) return Optional.of((int) Math.round(p.getAsDouble()));
+                if (p.isString()) return Optional.of(Integer.parseInt(p.getAsString().trim()));
+            }
+        } catch (Exception ignored) {}
+        return Optional.empty();
+    }
+
+    private static ActionSchema.View parseViewFlexible(JsonElement el) {
+        if (el == null || el.isJsonNull() || !el.isJsonObject()) return ActionSchema.View.none();
+        JsonObject o = el.getAsJsonObject();
+        Optional<Float> yawAbs = optFloat(o, "yawAbs");
+        Optional<Float> pitchAbs = optFloat(o, "pitchAbs");
+        Optional<Float> yawDelta = optFloat(o, "yawDelta");
+        Optional<Float> pitchDelta = optFloat(o, "pitchDelta");
+        return new ActionSchema.View(yawAbs, pitchAbs, yawDelta, pitchDelta);
+    }
+
+    private static Optional<Float> optFloat(JsonObject o, String k) {
+        if (!o.has(k) || o.get(k).isJsonNull()) return Optional.empty();
+        try {
+            JsonElement e = o.get(k);
+            if (e.isJsonPrimitive()) {
+                JsonPrimitive p = e.getAsJsonPrimitive();
+                if (p.isNumber()) return Optional.of(p.getAsFloat());
+                if (p.isString()) return Optional.of(Float.parseFloat(p.getAsString().trim()));
+            }
+        } catch (Exception ignored) {}
+        return Optional.empty();
+    }
+
+    private static Optional<ActionSchema.Target> parseTargetFlexible(JsonElement el) {
+        if (el == null || el.isJsonNull() || !el.isJsonObject()) return Optional.empty();
+        JsonObject o = el.getAsJsonObject();
+        Optional<Integer> x = safeInt(o.get("x"));
+        Optional<Integer> y = safeInt(o.get("y"));
+        Optional<Integer> z = safeInt(o.get("z"));
+        Optional<String> blockId = optString(o, "blockId");
+        Optional<String> blockTag = optString(o, "blockTag");
+        Optional<String> entityType = optString(o, "entityType");
+        Optional<String> entityName = optString(o, "entityName");
+        return Optional.of(new ActionSchema.Target(x, y, z, blockId, blockTag, entityType, entityName));
+    }
+
+    private static Optional<String> optString(JsonObject o, String k) {
+        if (!o.has(k) || o.get(k).isJsonNull()) return Optional.empty();
+        try {
+            String s = o.get(k).getAsString();
+            if (s != null) {
+                String t = s.trim();
+                if (!t.isEmpty()) return Optional.of(t);
+            }
+        } catch (Exception ignored) {}
+        return Optional.empty();
+    }
+
+    private static ActionSchema.Mouse parseMouseFlexible(JsonElement el) {
+        if (el == null || el.isJsonNull()) return ActionSchema.Mouse.none();
+        if (el.isJsonPrimitive()) {
+            // Accept single string shorthand e.g. "NONE"
+            String s = el.getAsString();
+            if (s != null && !s.isBlank()) return new ActionSchema.Mouse(parsePressString(s), ActionSchema.PressType.NONE);
+            return ActionSchema.Mouse.none();
+        }
+        if (!el.isJsonObject()) return ActionSchema.Mouse.none();
+        JsonObject o = el.getAsJsonObject();
+        ActionSchema.PressType left = o.has("left") && !o.get("left").isJsonNull() ? parsePressString(o.get("left").getAsString()) : ActionSchema.PressType.NONE;
+        ActionSchema.PressType right = o.has("right") && !o.get("right").isJsonNull() ? parsePressString(o.get("right").getAsString()) : ActionSchema.PressType.NONE;
+        return new ActionSchema.Mouse(left, right);
+    }
+
+    private static ActionSchema.PressType parsePressString(String s) {
+        if (s == null) return ActionSchema.PressType.NONE;
+        try { return ActionSchema.PressType.valueOf(s.trim().toUpperCase()); } catch (Exception ignored) { return ActionSchema.PressType.NONE; }
+    }
+}
@@ -2,6 +2,7 @@ package asagiribeta.voxelmind.client;
 
 import asagiribeta.voxelmind.Voxelmind;
 import asagiribeta.voxelmind.client.agent.AIAgentController;
+import asagiribeta.voxelmind.client.util.ScreenshotUtil;
 import asagiribeta.voxelmind.config.Config;
 import dev.architectury.event.events.client.ClientLifecycleEvent;
 import dev.architectury.event.events.client.ClientTickEvent;
@@ -63,6 +64,8 @@ public final class ClientInit {
                 mc.gui.getChat().addMessage(Component.literal("[VoxelMind] Config reloaded"));
             }
 
+            // Complete async (PBO) readbacks issued on earlier frames before new captures are started
+            ScreenshotUtil.tick();
             CONTROLLER.onClientTick(mc);
         });
     }
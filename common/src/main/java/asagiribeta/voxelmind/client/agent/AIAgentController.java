@@ -1,6 +1,9 @@
 package asagiribeta.voxelmind.client.agent;
 
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+import asagiribeta.voxelmind.client.capture.FrameHash;
 import asagiribeta.voxelmind.client.input.InputApplier;
+import asagiribeta.voxelmind.client.macro.MacroExecutor;
 import asagiribeta.voxelmind.client.navigation.PathNavigator;
 import asagiribeta.voxelmind.client.util.CrosshairUtil;
 import asagiribeta.voxelmind.client.util.ScreenshotUtil;
@@ -19,14 +22,17 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class AIAgentController {
     private static final Logger LOGGER = LogManager.getLogger("VoxelMind-AI");
-    private AgentClient agent;
+    private volatile AgentClient agent;
     private final InputApplier input = new InputApplier();
     // Replace boolean enabled with tri-state mode
     public enum AgentMode { DISABLED, OBSERVE, CONTROL }
@@ -35,14 +41,35 @@ public final class AIAgentController {
     // Single unified advanced PathNavigator
     private final PathNavigator pathNavigator = new PathNavigator();
 
-    // Async pipeline
-    private final ExecutorService exec = Executors.newSingleThreadExecutor(r -> {
-        Thread t = new Thread(r, "VoxelMind-Agent");
+    // Async pipeline: up to pipeline_depth decisions in flight, each tagged with a sequence number so that a reply
+    // older than one already published is dropped instead of overwriting newer actions.
+    private static final int MAX_PIPELINE_DEPTH = 4;
+    private final AtomicInteger agentThreadIds = new AtomicInteger();
+    private final ExecutorService exec = Executors.newFixedThreadPool(MAX_PIPELINE_DEPTH, r -> {
+        Thread t = new Thread(r, "VoxelMind-Agent-" + agentThreadIds.incrementAndGet());
         t.setDaemon(true);
         return t;
     });
-    private volatile boolean inFlight = false;
-    private final AtomicReference<ActionSchema.Actions> pending = new AtomicReference<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong decisionSeq = new AtomicLong();
+    private final Object pendingLock = new Object();
+    private ActionSchema.Actions pending = null; // guarded by pendingLock
+    private CapturePose pendingPose = null;      // guarded by pendingLock
+    private long pendingSeq = 0;                 // newest sequence published so far, guarded by pendingLock
+    private final AtomicLong decisionsSuperseded = new AtomicLong();
+
+    // Outstanding requests by sequence. Whoever removes an entry (completion or cancelInFlight) releases its slot.
+    private final ConcurrentHashMap<Long, CompletableFuture<ActionSchema.Actions>> requests = new ConcurrentHashMap<>();
+    private volatile long cancelledThroughSeq = 0; // decisions up to this sequence are abandoned, even mid-capture
+    private final AtomicLong decisionsCancelled = new AtomicLong();
+    private final AtomicLong decisionsThrottled = new AtomicLong();
+    private boolean playerWasDead = false;
+
+    // Player pose when a decision's frame was captured; relative navigation is resolved against it at apply time.
+    private record CapturePose(long gameTick, String dimension, BlockPos blockPos) {}
+    private record PendingDecision(ActionSchema.Actions actions, CapturePose pose) {}
+    private double avgDecisionAgeTicks = -1; // client thread only
+    private final AtomicLong staleDecisions = new AtomicLong();
     private long lastErrorTick = 0;
 
     // Anti-spam tracking
@@ -68,20 +95,90 @@ public final class AIAgentController {
 
     private boolean observeNeedsInitialDecision = false; // new flag
 
-    public AIAgentController() { this.agent = createAgentFromConfig(); }
+    // Frame-change gating; compared against the last frame actually sent so slow drift still adds up to a decision.
+    private volatile long lastSentFrameHash = 0L;
+    private volatile int lastSentStateHash = 0;
+    private volatile long lastSentGameTick = Long.MIN_VALUE;
+    private final AtomicLong decisionsSent = new AtomicLong();
+    private final AtomicLong decisionsSkipped = new AtomicLong();
+
+    // Measured latency drives the decision interval and request timeouts (see DecisionCadence)
+    private final DecisionCadence cadence = new DecisionCadence(Config.get().decisionIntervalTicks());
+    private int lastDecisionStartTick = 0;
+    // Triggers wait here for a free pipeline slot instead of being dropped; user chat is served first
+    private final DecisionScheduler scheduler = new DecisionScheduler();
+    // Multi-step plan run locally tick by tick; periodic decisions pause while it runs
+    private final PlanRunner plan = new PlanRunner();
+    private float planHealth = 0;
+    // Named multi-tick actions (mine, follow, collect, goto) executed locally at the full tick rate
+    private final MacroExecutor macros = new MacroExecutor(pathNavigator, input);
+    // Checked first every CONTROL tick; a firing reflex pre-empts plans, macros and in-flight requests
+    private final ReflexLayer reflexes = new ReflexLayer();
+    private boolean reflexSteering = false;
+    private long appliedConfigVersion;
+
+    public AIAgentController() {
+        Config cfg = Config.get();
+        this.appliedConfigVersion = cfg.version();
+        this.agent = createAgent(cfg);
+        Config.addListener(this::onConfigChanged);
+    }
+
+    private AgentClient createAgent(Config cfg) {
+        AgentClient client;
+        if (!cfg.agentEndpoints().isEmpty()) client = new RoutingAgentClient(cfg.agentEndpoints(), cfg, cadence::timeoutMillis);
+        else if (cfg.agentUrl().trim().isEmpty()) return new StubAgentClient();
+        else client = new HttpAgentClient(cfg.agentUrl(), cfg.model(), cfg.apiKey(), cadence::timeoutMillis);
+        if (!cfg.hedgeRequests()) return client;
+        return new HedgedAgentClient(client, () -> cadence.latencyPercentile(Config.get().hedgePercentile() / 100.0));
+    }
 
-    private static AgentClient createAgentFromConfig() {
-        String url = Config.get().agentUrl();
-        if (url == null || url.trim().isEmpty()) return new StubAgentClient();
-        return new HttpAgentClient();
+    // Listeners run on the publishing thread, so two quick updates can be delivered out of order; older snapshots are ignored.
+    private synchronized void onConfigChanged(Config prev, Config next) {
+        if (next.version() <= appliedConfigVersion) return;
+        appliedConfigVersion = next.version();
+        // The cadence was seeded once at construction; a new interval (or adaptation switched back on) starts it over
+        if (prev != null && (prev.decisionIntervalTicks() != next.decisionIntervalTicks() || (!prev.adaptiveCadence() && next.adaptiveCadence())))
+            cadence.reseed(next.decisionIntervalTicks());
+        // The client (and its pooled connections) is only rebuilt when the endpoint identity changes, not on every config edit.
+        if (prev != null && prev.agentUrl().equals(next.agentUrl()) && prev.model().equals(next.model()) && prev.apiKey().equals(next.apiKey())
+                && prev.agentEndpoints().equals(next.agentEndpoints()) && prev.hedgeRequests() == next.hedgeRequests()) return;
+        AgentClient previous = agent;
+        AgentClient desired = createAgent(next);
+        agent = desired;
+        if (mode != AgentMode.DISABLED) desired.warmUp();
+        if (previous == null) return;
+        Minecraft mc = Minecraft.getInstance();
+        if (mc == null) { previous.close(); return; }
+        boolean switched = !desired.getClass().equals(previous.getClass());
+        mc.execute(() -> {
+            // Decisions still running on the old client are abandoned, then its pooled connections and threads released
+            cancelInFlight("agent client replaced");
+            previous.close();
+            if (switched) mc.gui.getChat().addMessage(Component.literal("[VoxelMind] Agent switched to " + desired.getClass().getSimpleName()));
+        });
     }
 
     public AgentMode getMode() { return mode; }
+
+    public String connectionStats() { return agent.connectionStats(); }
+
+    public String decisionStats() { return "sent=" + decisionsSent.get() + ", skipped=" + decisionsSkipped.get() + ", superseded=" + decisionsSuperseded.get() + ", cancelled=" + decisionsCancelled.get() + ", throttled=" + decisionsThrottled.get() + ", inFlight=" + inFlight.get()
+            + ", age=" + (avgDecisionAgeTicks < 0 ? "n/a" : Math.round(avgDecisionAgeTicks) + "t") + ", stale=" + staleDecisions.get() + ", " + plan.stats() + ", " + macros.stats() + ", " + reflexes.stats() + ", " + scheduler.stats() + ", " + cadence.stats(); }
     public void setMode(AgentMode newMode) {
         if (newMode == null) newMode = AgentMode.DISABLED;
         if (this.mode == newMode) return;
         AgentMode prev = this.mode;
         this.mode = newMode;
+        // Replies to the old mode's prompt (answer-only vs control) no longer apply
+        cancelInFlight("mode " + prev + " -> " + newMode);
+        scheduler.clear();
+        plan.clear();
+        macros.cancel(Minecraft.getInstance());
+        reflexes.reset();
+        reflexSteering = false;
+        // Pre-connect so the first decision does not pay for DNS/TCP/TLS setup
+        if (prev == AgentMode.DISABLED) agent.warmUp();
         // If leaving CONTROL, ensure inputs released
         if (prev == AgentMode.CONTROL && newMode != AgentMode.CONTROL) input.resetAll();
         // If entering CONTROL fresh, also clear pending navigation state if any inconsistent (optional)
@@ -99,7 +196,12 @@ public final class AIAgentController {
     }
 
     // Public user injection API
-    public void sayToAI(String text) { if (text != null && !text.isBlank()) addConversation("user", getLocalPlayerNameSafe(), text.trim()); }
+    public void sayToAI(String text) {
+        if (text == null || text.isBlank()) return;
+        addConversation("user", getLocalPlayerNameSafe(), text.trim());
+        // Requests sent before this message cannot answer it; free their slots for the decision it triggers
+        cancelInFlight("new user message");
+    }
 
     public String getConversationSnapshot(int maxLines) {
         if (maxLines <= 0) return "";
@@ -153,18 +255,27 @@ public final class AIAgentController {
 
     public void onClientTick(Minecraft mc) {
         if (mode == AgentMode.DISABLED) return; if (mc == null || mc.level == null || mc.player == null) return;
-        if (Config.get().debug()) {
+        Config cfg = Config.get(); // one snapshot per tick
+        agent.maintainConnection();
+        boolean dead = mc.player.isDeadOrDying();
+        if (dead && !playerWasDead) { cancelInFlight("player died"); endPlan(mc, "player died"); macros.abort(mc, "player died"); }
+        playerWasDead = dead;
+        if (cfg.debug()) {
             int tc = tickCounter.get();
             if (tc % 200 == 0) {
-                LOGGER.info("[VoxelMind] Tick heartbeat mode={} inFlight={} convoSize={} observeInitFlag={}", mode, inFlight, conversation.size(), observeNeedsInitialDecision);
+                LOGGER.info("[VoxelMind] Tick heartbeat mode={} inFlight={} convoSize={} observeInitFlag={}", mode, inFlight.get(), conversation.size(), observeNeedsInitialDecision);
             }
         }
-        // ...existing code before agent swap...
-        AgentClient desired = createAgentFromConfig();
-        if (!desired.getClass().equals(this.agent.getClass())) { this.agent = desired; mc.gui.getChat().addMessage(Component.literal("[VoxelMind] Agent switched to " + desired.getClass().getSimpleName())); }
-        ActionSchema.Actions ready = pending.getAndSet(null); if (ready != null) applyActions(mc, ready);
-        int interval = Config.get().decisionIntervalTicks();
-        int t = tickCounter.incrementAndGet(); boolean runNow = (t % Math.max(1, interval)) == 0;
+        boolean steer = mode == AgentMode.CONTROL && cfg.reflexes() && checkReflexes(mc, cfg);
+        PendingDecision ready = takePending(); if (ready != null) applyDecision(mc, ready, cfg);
+        if (mode == AgentMode.CONTROL) tickPlan(mc, cfg);
+        if (mode == AgentMode.CONTROL && macros.isActive()) {
+            macros.tick(mc, cfg);
+            // Inside a plan the step waiting on the macro moves on instead
+            if (!macros.isActive() && !plan.isActive()) scheduler.request(DecisionScheduler.Trigger.TASK_ENDED);
+        }
+        int interval = cfg.adaptiveCadence() ? cadence.intervalTicks() : cfg.decisionIntervalTicks();
+        int t = tickCounter.incrementAndGet(); boolean runNow = t - lastDecisionStartTick >= interval;
         if (mode == AgentMode.OBSERVE) {
             if (observeNeedsInitialDecision) { runNow = true; }
             else {
@@ -172,35 +283,267 @@ public final class AIAgentController {
                 if (!conversation.isEmpty() && lastConversationChangeTick <= lastConversationUsedForDecisionTick) runNow = false;
             }
         }
-        if (runNow && !inFlight) { inFlight = true; ScreenshotUtil.captureAsync(mc, png -> {
-            if (png == null) { inFlight = false; maybeSayOnce(mc, "Screenshot capture failed (null)"); observeNeedsInitialDecision = false; return; }
-            if (mode == AgentMode.OBSERVE) { lastConversationUsedForDecisionTick = lastConversationChangeTick; observeNeedsInitialDecision = false; }
-            AgentClient.GameContext ctx = buildContext(mc); String ctxText = buildConversationContext(); Optional<String> convoOpt = ctxText.isBlank()? Optional.empty(): Optional.of(ctxText);
-            exec.submit(() -> { try { var actions = agent.decide(png, ctx, convoOpt); if (actions != null) pending.set(actions);} catch (Throwable th){ maybeSayOnce(mc, "Agent request failed"); } finally { inFlight = false; }});
-        }); }
+        if (runNow && !plan.isActive() && !macros.isActive()) scheduler.request(DecisionScheduler.Trigger.PERIODIC);
+        dispatchQueued(mc, cfg);
         if (mode == AgentMode.CONTROL) input.tick(mc);
         if (mode == AgentMode.CONTROL && pathNavigator.isActive()) { var step = pathNavigator.produceStep(mc.player); if (step != null) { step.view().ifPresent(v -> input.applyView(mc,v)); input.applyMovement(mc, step.movement()); }}
-        if (mode == AgentMode.CONTROL && activeTarget != null) autoAimAtActiveTarget(mc);
+        if (mode == AgentMode.CONTROL && activeTarget != null && !macros.isActive() && !steer) autoAimAtActiveTarget(mc);
+        // The reflex has the last word on this tick's keys
+        if (steer) reflexes.steer(mc, input);
+    }
+
+    // On the onset of a reflex the plan, macro, path and in-flight requests are dropped and a REFLEX decision is queued
+    // with the event in its prompt. Returns whether the reflex steers this tick. Allocation-free unless a reflex starts.
+    private boolean checkReflexes(Minecraft mc, Config cfg) {
+        long now = mc.level.getGameTime();
+        ReflexLayer.Reflex r = reflexes.evaluate(mc, mc.player, cfg);
+        if (reflexes.update(r, now)) {
+            String reason = "reflex: " + r.description;
+            endPlan(mc, reason);
+            macros.abort(mc, "interrupted by " + reason);
+            pathNavigator.cancel();
+            cancelInFlight(reason);
+            scheduler.request(DecisionScheduler.Trigger.REFLEX);
+            if (cfg.debug()) LOGGER.info("[VoxelMind] Reflex fired: {}", r.description);
+        }
+        boolean steer = reflexes.steering(now);
+        if (!steer && reflexSteering) reflexes.stopSteering(mc, input);
+        reflexSteering = steer;
+        return steer;
     }
 
-    public void triggerDecisionNow(Minecraft mc) {
-        if (mode == AgentMode.DISABLED) return; if (mc == null || mc.level == null || mc.player == null || inFlight) return;
-        inFlight = true;
-        ScreenshotUtil.captureAsync(mc, png -> {
-            if (png == null) { inFlight = false; maybeSayOnce(mc, "Screenshot capture failed (null)"); return; }
-            AgentClient.GameContext ctx = buildContext(mc); String ctxText = buildConversationContext(); Optional<String> convoOpt = ctxText.isBlank()? Optional.empty(): Optional.of(ctxText);
-            exec.submit(() -> { try { var actions = agent.decide(png, ctx, convoOpt); if (actions != null) pending.set(actions);} catch (Throwable th){ maybeSayOnce(mc, "Agent request failed"); } finally { inFlight = false; }});
+    public void triggerDecisionNow(Minecraft mc) { triggerDecision(mc, DecisionScheduler.Trigger.USER_CHAT); }
+
+    private void triggerDecision(Minecraft mc, DecisionScheduler.Trigger trigger) {
+        if (mode == AgentMode.DISABLED) return; if (mc == null || mc.level == null || mc.player == null) return;
+        scheduler.request(trigger);
+        dispatchQueued(mc, Config.get());
+    }
+
+    // Starts the highest-priority queued trigger when a pipeline slot is free; otherwise it stays queued for a later tick.
+    private void dispatchQueued(Minecraft mc, Config cfg) {
+        // While the backend is rate limited the trigger stays queued instead of being spent on a rejected request
+        if (!scheduler.hasQueued() || agent.throttledForMillis() > 0 || !tryReserveSlot(cfg.pipelineDepth())) return;
+        DecisionScheduler.Trigger trigger = scheduler.poll();
+        // Context is snapshotted here on the client thread; the capture callback runs on the encoder thread.
+        if (mode == AgentMode.OBSERVE) lastConversationUsedForDecisionTick = lastConversationChangeTick;
+        boolean force = trigger != DecisionScheduler.Trigger.PERIODIC || observeNeedsInitialDecision;
+        observeNeedsInitialDecision = false;
+        if (cfg.debug()) LOGGER.debug("[VoxelMind] Starting decision for {}", trigger);
+        startDecision(mc, force);
+    }
+
+    private boolean tryReserveSlot(int depth) {
+        for (;;) {
+            int cur = inFlight.get();
+            if (cur >= depth) return false;
+            if (inFlight.compareAndSet(cur, cur + 1)) return true;
+        }
+    }
+
+    // Caller must have reserved an inFlight slot. Capture completes on the encoder thread, the request runs on the agent executor.
+    // Unless forced, the request is skipped when neither the frame nor the game/conversation state changed meaningfully.
+    private void startDecision(Minecraft mc, boolean force) {
+        // Status lines are only peeked here: a decision that is skipped, cancelled or held back must not swallow them
+        String reflexStatus = reflexes.status(), planStatus = plan.status(), macroStatus = macros.status();
+        AgentClient.GameContext ctx = buildContext(mc, joinStatus(reflexStatus, planStatus, macroStatus)); String ctxText = buildConversationContext(); Optional<String> convoOpt = ctxText.isBlank()? Optional.empty(): Optional.of(ctxText);
+        AgentClient client = agent;
+        long seq = decisionSeq.incrementAndGet();
+        CapturePose pose = new CapturePose(mc.level.getGameTime(), ctx.dimension(), mc.player.blockPosition());
+        lastDecisionStartTick = tickCounter.get();
+        int stateHash = stateHash(ctx, ctxText);
+        long gameTick = mc.level.getGameTime();
+        ScreenshotUtil.captureAsync(mc, frame -> {
+            if (frame == null) { inFlight.decrementAndGet(); maybeSayOnce(mc, "Screenshot capture failed (null)"); return; }
+            if (seq <= cancelledThroughSeq) { inFlight.decrementAndGet(); return; }
+            if (!force && isUnchanged(frame, stateHash, gameTick)) {
+                decisionsSkipped.incrementAndGet();
+                if (Config.get().debug()) LOGGER.debug("[VoxelMind] Skipped decision: frame distance {} <= {}", FrameHash.distance(frame.perceptualHash(), lastSentFrameHash), Config.get().frameChangeThreshold());
+                inFlight.decrementAndGet();
+                return;
+            }
+            lastSentFrameHash = frame.perceptualHash(); lastSentStateHash = stateHash; lastSentGameTick = gameTick;
+            decisionsSent.incrementAndGet();
+            long timeout = cadence.timeoutMillis(), t0 = System.nanoTime();
+            CompletableFuture<ActionSchema.Actions> request;
+            try { request = client.decideAsync(frame, ctx, convoOpt, partial -> publishActions(seq, pose, partial), exec); }
+            catch (Throwable th) { inFlight.decrementAndGet(); maybeSayOnce(mc, "Agent request failed"); return; }
+            requests.put(seq, request);
+            if (seq <= cancelledThroughSeq && requests.remove(seq, request)) { request.cancel(true); inFlight.decrementAndGet(); return; }
+            // Sent (a request the rate limiter held fails at once): the status lines it carried need not be repeated
+            if (!request.isCompletedExceptionally()) mc.execute(() -> { reflexes.statusSent(reflexStatus); plan.statusSent(planStatus); macros.statusSent(macroStatus); });
+            request.whenComplete((actions, err) -> {
+                if (!requests.remove(seq, request)) return; // cancelled; slot already released
+                Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+                // Held by the rate limiter before it was sent: neither a failure nor a latency sample
+                boolean throttled = cause instanceof RateLimitedException;
+                try {
+                    if (throttled) decisionsThrottled.incrementAndGet();
+                    else if (err != null) maybeSayOnce(mc, "Agent request failed");
+                    else if (actions != null) publishActions(seq, pose, actions);
+                }
+                finally {
+                    // A timeout, or a reply that took as long as one, is the congestion signal
+                    long ms = (System.nanoTime() - t0) / 1_000_000;
+                    boolean timedOut = ms >= timeout || cause instanceof java.net.http.HttpTimeoutException;
+                    if (!throttled) cadence.record(ms, timedOut, Config.get().pipelineDepth());
+                    inFlight.decrementAndGet();
+                }
+            });
         });
     }
 
-    private void maybeSayOnce(Minecraft mc, String msg) { long now = mc.level.getGameTime(); if (now - lastErrorTick > 200) { lastErrorTick = now; mc.execute(() -> mc.gui.getChat().addMessage(Component.literal("[VoxelMind] " + msg))); } }
+    /** Abandons every decision started so far (captures still encoding included) and drops any reply not yet applied. */
+    private void cancelInFlight(String reason) {
+        cancelledThroughSeq = decisionSeq.get();
+        synchronized (pendingLock) { pending = null; pendingPose = null; }
+        int n = 0;
+        for (var e : requests.entrySet()) {
+            if (!requests.remove(e.getKey(), e.getValue())) continue;
+            e.getValue().cancel(true);
+            inFlight.decrementAndGet();
+            n++;
+        }
+        if (n == 0) return;
+        decisionsCancelled.addAndGet(n);
+        // A fresh decision may start immediately rather than waiting out the interval
+        lastDecisionStartTick = Integer.MIN_VALUE / 2;
+        if (Config.get().debug()) LOGGER.info("[VoxelMind] Cancelled {} in-flight decision(s): {}", n, reason);
+    }
 
-    private static AgentClient.GameContext buildContext(Minecraft mc) {
+    // A newer sequence replaces whatever is pending; the same sequence (streamed partials) overlays; an older one is dropped.
+    private void publishActions(long seq, CapturePose pose, ActionSchema.Actions actions) {
+        if (seq <= cancelledThroughSeq) return;
+        synchronized (pendingLock) {
+            if (seq < pendingSeq) { decisionsSuperseded.incrementAndGet(); return; }
+            pending = seq > pendingSeq || pending == null ? actions : pending.mergedWith(actions);
+            pendingPose = pose;
+            pendingSeq = seq;
+        }
+    }
+
+    private PendingDecision takePending() {
+        synchronized (pendingLock) {
+            if (pending == null) return null;
+            PendingDecision d = new PendingDecision(pending, pendingPose);
+            pending = null;
+            return d;
+        }
+    }
+
+    // Decisions older than action_max_age_ticks (or from another world) keep their chat reply but lose movement, aim and clicks.
+    private void applyDecision(Minecraft mc, PendingDecision d, Config cfg) {
+        CapturePose pose = d.pose();
+        long age = mc.level.getGameTime() - pose.gameTick();
+        avgDecisionAgeTicks = avgDecisionAgeTicks < 0 ? age : avgDecisionAgeTicks * 0.8 + age * 0.2;
+        String dim = mc.level.dimension().location().toString();
+        ActionSchema.Actions actions = d.actions();
+        if (age < 0 || age > cfg.actionMaxAgeTicks() || !dim.equals(pose.dimension())) {
+            staleDecisions.incrementAndGet();
+            if (cfg.debug()) LOGGER.debug("[VoxelMind] Degrading stale decision: age={} ticks", age);
+            actions = new ActionSchema.Actions(actions.chat(), ActionSchema.Navigation.none(), ActionSchema.View.none(), ActionSchema.Mouse.none(), Optional.empty());
+        }
+        // New control from the model replaces the running plan and macro; a chat-only reply (e.g. to the player) leaves them running
+        if (mode == AgentMode.CONTROL && actions.hasControl()) { plan.clear(); macros.cancel(mc); }
+        applyActions(mc, actions, pose.blockPos());
+        if (mode == AgentMode.CONTROL && !actions.plan().isEmpty()) {
+            plan.start(actions.plan());
+            planHealth = mc.player.getHealth(); // the first step begins in tickPlan right after this
+        }
+    }
+
+    // The current step ends when its condition holds and the next step's actions are applied in the same tick. A step
+    // that runs out of time, a failed path or taking damage aborts the plan; either way the model is asked again.
+    private void tickPlan(Minecraft mc, Config cfg) {
+        if (!plan.isActive()) return;
+        LocalPlayer p = mc.player;
+        long now = mc.level.getGameTime();
+        if (p.getHealth() < planHealth) { endPlan(mc, "took damage"); return; }
+        planHealth = p.getHealth();
+        ActionSchema.PlanStep step = plan.current();
+        if (step != null) {
+            boolean done = switch (step.until()) {
+                case TICKS -> plan.elapsed(now) >= step.ticks();
+                case ARRIVE -> !pathNavigator.isActive();
+                case BLOCK_BROKEN -> planBlockBroken(mc);
+                case DONE -> !macros.isActive();
+            };
+            if (!done) {
+                // A macro enforces its own time limit
+                int limit = step.ticks() > 0 ? step.ticks() : step.until() == ActionSchema.Until.DONE ? Integer.MAX_VALUE : cfg.planStepTimeoutTicks();
+                if (step.until() != ActionSchema.Until.TICKS && plan.elapsed(now) >= limit) endPlan(mc, "step timed out after " + limit + " ticks");
+                return;
+            }
+            if (step.until() == ActionSchema.Until.DONE && macros.lastFailed() && step.actions().macro().isPresent()) { endPlan(mc, "macro failed"); return; }
+            if (step.until() == ActionSchema.Until.ARRIVE && plan.goal() != null && p.blockPosition().distManhattan(plan.goal()) > 1) { endPlan(mc, "no path to goal"); return; }
+        }
+        ActionSchema.PlanStep next = plan.next(now);
+        if (next == null) {
+            if (cfg.debug()) LOGGER.info("[VoxelMind] Plan completed");
+            scheduler.request(DecisionScheduler.Trigger.TASK_ENDED);
+            return;
+        }
+        ActionSchema.Navigation nav = next.actions().navigation();
+        if (nav.hasRequest()) plan.setGoal(p.blockPosition().offset(nav.dxOrZero(), nav.dyOrZero(), nav.dzOrZero()));
+        applyActions(mc, next.actions(), null);
+        if (next.until() == ActionSchema.Until.BLOCK_BROKEN) plan.setBlock(planBlock(mc));
+    }
+
+    // Block a BLOCK_BROKEN step waits on: the locked target block if any, else whatever the crosshair is on; re-resolved while unknown.
+    private boolean planBlockBroken(Minecraft mc) {
+        BlockPos b = plan.block();
+        if (b == null) { plan.setBlock(planBlock(mc)); return false; }
+        return mc.level.getBlockState(b).isAir();
+    }
+
+    private BlockPos planBlock(Minecraft mc) {
+        if (activeTarget != null && activeTarget.hasBlock()) return cachedBlockPos.orElse(null);
+        return CrosshairUtil.getCrosshairInfo(mc).map(CrosshairUtil.CrosshairInfo::pos).orElse(null);
+    }
+
+    // Aborts the running plan, stops what it was doing and asks the model for the next step
+    private void endPlan(Minecraft mc, String reason) {
+        if (!plan.isActive()) return;
+        plan.abort(reason);
+        macros.cancel(mc);
+        pathNavigator.cancel();
+        if (mode == AgentMode.CONTROL) input.applyMouse(mc, new ActionSchema.Mouse(ActionSchema.PressType.RELEASE, ActionSchema.PressType.RELEASE));
+        if (Config.get().debug()) LOGGER.info("[VoxelMind] Plan aborted: {}", reason);
+        scheduler.request(DecisionScheduler.Trigger.TASK_ENDED);
+    }
+
+    private static String joinStatus(String... lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String l : lines) { if (l.isEmpty()) continue; if (sb.length() > 0) sb.append('\n'); sb.append(l); }
+        return sb.toString();
+    }
+
+    private boolean isUnchanged(EncodedFrame frame, int stateHash, long gameTick) {
+        Config cfg = Config.get();
+        if (!cfg.skipUnchangedFrames() || lastSentGameTick == Long.MIN_VALUE) return false;
+        if (gameTick - lastSentGameTick >= cfg.frameSkipMaxTicks()) return false;
+        return stateHash == lastSentStateHash && FrameHash.distance(frame.perceptualHash(), lastSentFrameHash) <= cfg.frameChangeThreshold();
+    }
+
+    // Coarse state fingerprint: block position, 15-degree view buckets, mode, plan status and the full conversation context.
+    private int stateHash(AgentClient.GameContext ctx, String convo) {
+        return Objects.hash(mode, ctx.dimension(), ctx.biome(), ctx.status(),
+                (int) Math.floor(ctx.x()), (int) Math.floor(ctx.y()), (int) Math.floor(ctx.z()),
+                Math.floorMod(Math.round(ctx.yaw() / 15f), 24), Math.round(ctx.pitch() / 15f), convo);
+    }
+
+    // May be called from worker threads; the level read and chat output are marshalled onto the client thread.
+    private void maybeSayOnce(Minecraft mc, String msg) { mc.execute(() -> { if (mc.level == null) return; long now = mc.level.getGameTime(); if (now - lastErrorTick > 200) { lastErrorTick = now; mc.gui.getChat().addMessage(Component.literal("[VoxelMind] " + msg)); } }); }
+
+    private static AgentClient.GameContext buildContext(Minecraft mc, String status) {
         LocalPlayer p = mc.player; String dim = mc.level.dimension().location().toString(); String biome = mc.level.getBiome(p.blockPosition()).unwrapKey().map(k->k.location().toString()).orElse("?");
-        return new AgentClient.GameContext(dim, p.getX(), p.getY(), p.getZ(), p.getYRot(), p.getXRot(), biome);
+        return new AgentClient.GameContext(dim, p.getX(), p.getY(), p.getZ(), p.getYRot(), p.getXRot(), biome, status);
     }
 
-    public void applyActions(Minecraft mc, ActionSchema.Actions actions) {
+    public void applyActions(Minecraft mc, ActionSchema.Actions actions) { applyActions(mc, actions, null); }
+
+    /** {@code origin} is the player's block when the decision's frame was captured; null resolves navigation from the current position. */
+    public void applyActions(Minecraft mc, ActionSchema.Actions actions, BlockPos origin) {
         Objects.requireNonNull(actions);
         // Unified chat handling with simple anti-spam (skip identical message within 200 ticks ~10s)
         actions.chat().message().ifPresent(msg -> { if (msg != null) {
@@ -230,9 +573,16 @@ public final class AIAgentController {
         // input.applyView(mc, actions.view());
 
         // Navigation only when in CONTROL mode
-        if (mode == AgentMode.CONTROL && actions.navigation().hasRequest() && mc.player != null) { pathNavigator.cancel(); pathNavigator.start(mc.player, actions.navigation()); }
+        if (mode == AgentMode.CONTROL && actions.navigation().hasRequest() && mc.player != null) { pathNavigator.cancel(); pathNavigator.start(mc.player, origin != null ? origin : mc.player.blockPosition(), actions.navigation()); }
         // Update active target only in CONTROL
         if (mode == AgentMode.CONTROL && actions.target().isPresent()) { var tgt = actions.target().get(); if (!tgt.hasBlock() && !tgt.hasEntity()) { activeTarget = null; cachedBlockPos = Optional.empty(); } else { activeTarget = tgt; cachedBlockPos = Optional.empty(); } }
+        // A macro brings its own aim, so it takes over the target (using the decision's target if it names none)
+        if (mode == AgentMode.CONTROL && actions.macro().isPresent()) {
+            ActionSchema.Macro m = actions.macro().get();
+            macros.start(mc, m.target().isPresent() ? m : new ActionSchema.Macro(m.kind(), actions.target(), m.count(), m.radius(), m.distance(), m.ticks()));
+            activeTarget = null;
+            cachedBlockPos = Optional.empty();
+        }
         if (mode == AgentMode.CONTROL && activeTarget != null) autoAimAtActiveTarget(mc);
         // Movement / mouse application only if CONTROL
         if (mode == AgentMode.CONTROL) { ActionSchema.Movement mv = ActionSchema.Movement.none(); if (pathNavigator.isActive() && mc.player != null) { var step = pathNavigator.produceStep(mc.player); if (step != null) { step.view().ifPresent(v -> input.applyView(mc,v)); mv = step.movement(); } }
@@ -296,7 +646,7 @@ public final class AIAgentController {
         addConversation(isLocal? "user":"other", sender, text);
         if (Config.get().aiAutoReply() && mode != AgentMode.DISABLED) {
             Minecraft mc = Minecraft.getInstance(); long nowTick = mc.level == null ? 0 : mc.level.getGameTime(); int interval = Math.max(Config.get().aiChatMinIntervalTicks()*2, 40);
-            if (nowTick - lastAutoReplyTriggerTick >= interval) { if (shouldAutoReply(text, isLocal)) { lastAutoReplyTriggerTick = nowTick; triggerDecisionNow(mc); } }
+            if (nowTick - lastAutoReplyTriggerTick >= interval) { if (shouldAutoReply(text, isLocal)) { lastAutoReplyTriggerTick = nowTick; triggerDecision(mc, isLocal ? DecisionScheduler.Trigger.USER_CHAT : DecisionScheduler.Trigger.OTHER_CHAT); } }
         }
     }
 
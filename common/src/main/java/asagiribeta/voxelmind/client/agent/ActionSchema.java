@@ -1,5 +1,6 @@
 package asagiribeta.voxelmind.client.agent;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -59,15 +60,84 @@ public final class ActionSchema {
         public boolean hasBlock() { return blockId.isPresent() || blockTag.isPresent() || hasPos(); }
     }
 
-    public record Actions(Chat chat, Navigation navigation, View view, Mouse mouse, Optional<Target> target) {
+    /** Completion condition of a plan step. */
+    public enum Until {
+        /** The step's navigation has reached its goal (at once if the step has no navigation). */
+        ARRIVE,
+        /** The block aimed at (locked target block, else the crosshair block) when the step began is gone. */
+        BLOCK_BROKEN,
+        /** A fixed number of ticks has elapsed. */
+        TICKS,
+        /** The step's macro has finished (a failed macro aborts the plan). */
+        DONE
+    }
+
+    /** Locally executed multi-tick actions the model can invoke by name. */
+    public enum MacroKind { MINE_TARGET_UNTIL_BROKEN, FOLLOW_ENTITY, COLLECT_NEARBY_ITEMS, GOTO_BLOCK_OF_TYPE }
+
+    /**
+     * Macro invocation. {@code target} selects the block (mine, goto) or entity (follow); {@code count} is how many blocks
+     * to mine, {@code radius} the search radius, {@code distance} how close to stay when following and {@code ticks} a
+     * time limit (the duration for follow_entity). Numeric parameters of 0 take the macro's default.
+     */
+    public record Macro(MacroKind kind, Optional<Target> target, int count, int radius, int distance, int ticks) {
+        public Macro {
+            Objects.requireNonNull(kind);
+            Objects.requireNonNull(target);
+        }
+    }
+
+    /**
+     * One step of a plan. {@code actions} are applied once when the step begins; the step then runs until {@code until}
+     * holds. {@code ticks} is the duration for TICKS and a time limit for ARRIVE / BLOCK_BROKEN (0 = plan_step_timeout_ticks);
+     * a step that runs out of time aborts the plan.
+     */
+    public record PlanStep(Actions actions, Until until, int ticks) {
+        public PlanStep {
+            Objects.requireNonNull(actions);
+            Objects.requireNonNull(until);
+        }
+    }
+
+    /**
+     * {@code plan} is an optional ordered list of steps executed locally over many ticks (CONTROL only); the one-shot
+     * fields are applied first, then the plan starts. Steps carry no nested plans. {@code macro} starts a local macro
+     * action (CONTROL only); in a plan step it runs while the step waits.
+     */
+    public record Actions(Chat chat, Navigation navigation, View view, Mouse mouse, Optional<Target> target, List<PlanStep> plan, Optional<Macro> macro) {
         public static Actions none() { return new Actions(Chat.none(), Navigation.none(), View.none(), Mouse.none(), Optional.empty()); }
 
+        public Actions(Chat chat, Navigation navigation, View view, Mouse mouse, Optional<Target> target) {
+            this(chat, navigation, view, mouse, target, List.of(), Optional.empty());
+        }
+
+        /** True if anything besides chat is requested. */
+        public boolean hasControl() {
+            return navigation.hasRequest() || !view.equals(View.none()) || !mouse.equals(Mouse.none()) || target.isPresent() || !plan.isEmpty() || macro.isPresent();
+        }
+
+        /** Field-wise overlay: non-empty fields of {@code later} win, so partial (streamed) actions can be combined. */
+        public Actions mergedWith(Actions later) {
+            if (later == null) return this;
+            Chat c = later.chat.message().isPresent() ? later.chat : chat;
+            Navigation n = later.navigation.dx().isPresent() || later.navigation.dy().isPresent() || later.navigation.dz().isPresent() ? later.navigation : navigation;
+            View v = later.view.equals(View.none()) ? view : later.view;
+            Mouse m = new Mouse(later.mouse.left() != PressType.NONE ? later.mouse.left() : mouse.left(),
+                    later.mouse.right() != PressType.NONE ? later.mouse.right() : mouse.right());
+            Optional<Target> t = later.target.isPresent() ? later.target : target;
+            List<PlanStep> p = later.plan.isEmpty() ? plan : later.plan;
+            Optional<Macro> mc = later.macro.isPresent() ? later.macro : macro;
+            return new Actions(c, n, v, m, t, p, mc);
+        }
+
         public Actions {
             Objects.requireNonNull(chat);
             Objects.requireNonNull(navigation);
             Objects.requireNonNull(view);
             Objects.requireNonNull(mouse);
             Objects.requireNonNull(target);
+            plan = List.copyOf(plan);
+            Objects.requireNonNull(macro);
         }
     }
 }
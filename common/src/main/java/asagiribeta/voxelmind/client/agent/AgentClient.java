@@ -1,12 +1,50 @@
 package asagiribeta.voxelmind.client.agent;
 
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Interface for an AI agent backend that takes a screenshot and produces structured actions.
  */
 public interface AgentClient {
-    ActionSchema.Actions decide(byte[] screenshotPngBytes, GameContext context, Optional<String> userGoal);
+    ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, Optional<String> userGoal);
+
+    /**
+     * Streaming-capable variant. {@code onPartial} may receive action fields (navigation, mouse, target, plan, macro) before the
+     * reply is complete; the returned Actions then carries only what was not already published. Defaults to {@link #decide}.
+     */
+    default ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, Optional<String> userGoal, Consumer<ActionSchema.Actions> onPartial) {
+        return decide(screenshot, context, userGoal);
+    }
+
+    /**
+     * Cancellable variant. Cancelling the returned future abandons the decision; implementations that can abort the
+     * underlying request should do so. Defaults to running the blocking {@code decide} on {@code executor}, where
+     * cancellation only discards the result.
+     */
+    default CompletableFuture<ActionSchema.Actions> decideAsync(EncodedFrame screenshot, GameContext context, Optional<String> userGoal,
+                                                               Consumer<ActionSchema.Actions> onPartial, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> decide(screenshot, context, userGoal, onPartial), executor);
+    }
+
+    /** Opens the connection ahead of the first decision (called when the agent is activated). */
+    default void warmUp() {}
+
+    /** Called every client tick while active; implementations may ping an idle connection to keep it open. */
+    default void maintainConnection() {}
+
+    default String connectionStats() { return "n/a"; }
+
+    /** Releases connections and threads once the client has been replaced; its in-flight decisions are cancelled first. */
+    default void close() {}
+
+    /** Milliseconds until the backend will accept another request (rate limits, Retry-After); 0 when it will now. */
+    default long throttledForMillis() { return 0; }
 
-    record GameContext(String dimension, double x, double y, double z, float yaw, float pitch, String biome) {}
+    /** {@code status} is an optional line about local execution (e.g. how the last action plan ended); empty if none. */
+    record GameContext(String dimension, double x, double y, double z, float yaw, float pitch, String biome, String status) {}
 }
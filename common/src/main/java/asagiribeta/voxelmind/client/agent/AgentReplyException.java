@@ -0,0 +1,9 @@
+package asagiribeta.voxelmind.client.agent;
+
+/**
+ * Completes a decision whose exchange finished without a usable reply (non-2xx status, or no assistant content), so a
+ * failure is never mistaken for an empty decision. Transport errors and timeouts complete with their own exception.
+ */
+final class AgentReplyException extends RuntimeException {
+    AgentReplyException(String message) { super(message, null, false, false); }
+}
@@ -0,0 +1,364 @@
+package asagiribeta.voxelmind.client.agent;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Single-pass {@link JsonReader} decoding for chat.completions replies: the envelope is walked only as far as
+ * choices[0].message.content (the usage token counts are picked up on the way, everything else is skipped unread), and the
+ * actions object inside the content is decoded straight into {@link ActionSchema} records without building a tree.
+ * Field handling matches the model's loose output: chat as string or {message}, numbers as numbers or numeric strings,
+ * mouse as an object or a bare press string, and any text before the first '{' (e.g. a markdown fence) is ignored.
+ */
+final class ChatCompletionDecoder {
+    private ChatCompletionDecoder() {}
+
+    static final int MAX_PLAN_STEPS = 16;
+
+    /** Assistant content (null if absent) and reported token usage (0 if absent). */
+    record Envelope(String content, Usage usage) {}
+
+    /** usage.total_tokens, usage.prompt_tokens and usage.prompt_tokens_details.cached_tokens (prefix-cache hits). */
+    record Usage(long totalTokens, long promptTokens, long cachedTokens) {
+        static final Usage NONE = new Usage(0, 0, 0);
+    }
+
+    /** Full (non-streamed) reply: choices[0].message.content. */
+    static Envelope decodeEnvelope(Reader body) throws IOException { return decodeEnvelope(reader(body), "message"); }
+
+    /** One server-sent event chunk: choices[0].delta.content, or null. */
+    static String decodeDeltaContent(String chunk) {
+        try { return decodeEnvelope(reader(new StringReader(chunk)), "delta").content(); } catch (Exception e) { return null; }
+    }
+
+    private static Envelope decodeEnvelope(JsonReader r, String messageKey) throws IOException {
+        String content = null;
+        Usage usage = Usage.NONE;
+        if (r.peek() != JsonToken.BEGIN_OBJECT) return new Envelope(null, Usage.NONE);
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "choices" -> content = firstChoiceContent(r, messageKey);
+                case "usage" -> usage = usage(r);
+                default -> r.skipValue();
+            }
+        }
+        return new Envelope(content, usage);
+    }
+
+    /** Decodes the actions object; throws if the content holds no well-formed object. Text after the object is ignored. */
+    static ActionSchema.Actions decodeActions(String content) throws IOException {
+        int start = content.indexOf('{');
+        if (start < 0) throw new IOException("No JSON object in content");
+        StringReader in = new StringReader(content);
+        in.skip(start);
+        JsonReader r = reader(in);
+        Fields f = new Fields();
+        r.beginObject();
+        while (r.hasNext()) {
+            String name = r.nextName();
+            if (name.equals("plan")) f.plan = plan(r);
+            else if (!f.read(name, r)) r.skipValue();
+        }
+        r.endObject();
+        return f.actions();
+    }
+
+    /** Action members of one object (the reply itself or a plan step). */
+    private static final class Fields {
+        ActionSchema.Chat chat = ActionSchema.Chat.none();
+        ActionSchema.Navigation nav = ActionSchema.Navigation.none();
+        ActionSchema.View view = ActionSchema.View.none();
+        ActionSchema.Mouse mouse = ActionSchema.Mouse.none();
+        Optional<ActionSchema.Target> target = Optional.empty();
+        List<ActionSchema.PlanStep> plan = List.of();
+        Optional<ActionSchema.Macro> macro = Optional.empty();
+
+        /** Consumes the value if {@code name} is an action member; false (value left unread) otherwise. */
+        boolean read(String name, JsonReader r) throws IOException {
+            switch (name) {
+                case "chat" -> chat = chat(r);
+                case "navigation" -> nav = navigation(r);
+                case "view" -> view = view(r);
+                case "mouse" -> mouse = mouse(r);
+                case "target" -> target = target(r);
+                case "macro" -> macro = macro(r);
+                default -> { return false; }
+            }
+            return true;
+        }
+
+        ActionSchema.Actions actions() { return new ActionSchema.Actions(chat, nav, view, mouse, target, plan, macro); }
+    }
+
+    /**
+     * Steps of {"plan":[{...actions, "until":"arrive|block_broken|ticks", "ticks":N}, ...]}, at most {@link #MAX_PLAN_STEPS}.
+     * Without a usable "until" a step with a macro waits for it to finish, one with navigation waits to arrive and any
+     * other step waits {@code ticks} (at least 1).
+     */
+    private static List<ActionSchema.PlanStep> plan(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_ARRAY) { r.skipValue(); return List.of(); }
+        List<ActionSchema.PlanStep> steps = new ArrayList<>();
+        r.beginArray();
+        while (r.hasNext()) {
+            if (r.peek() != JsonToken.BEGIN_OBJECT || steps.size() >= MAX_PLAN_STEPS) { r.skipValue(); continue; }
+            Fields f = new Fields();
+            Optional<String> until = Optional.empty();
+            int ticks = 0;
+            r.beginObject();
+            while (r.hasNext()) {
+                String name = r.nextName();
+                switch (name) {
+                    case "until" -> until = trimmed(optString(r));
+                    case "ticks" -> ticks = Math.max(0, optInt(r).orElse(0));
+                    default -> { if (!f.read(name, r)) r.skipValue(); }
+                }
+            }
+            r.endObject();
+            ActionSchema.Until u = until.map(ChatCompletionDecoder::until).orElse(null);
+            if (u == null) u = f.macro.isPresent() ? ActionSchema.Until.DONE : f.nav.hasRequest() ? ActionSchema.Until.ARRIVE : ActionSchema.Until.TICKS;
+            if (u == ActionSchema.Until.TICKS) ticks = Math.max(1, ticks);
+            steps.add(new ActionSchema.PlanStep(f.actions(), u, ticks));
+        }
+        r.endArray();
+        return steps;
+    }
+
+    /** {"name":"follow_entity","target":{...},"distance":3,...} or just the name; unknown names yield empty. */
+    private static Optional<ActionSchema.Macro> macro(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) return trimmed(optString(r)).flatMap(n -> macroKind(n).map(k -> new ActionSchema.Macro(k, Optional.empty(), 0, 0, 0, 0)));
+        Optional<ActionSchema.MacroKind> kind = Optional.empty();
+        Optional<ActionSchema.Target> target = Optional.empty();
+        int count = 0, radius = 0, distance = 0, ticks = 0;
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "name" -> kind = trimmed(optString(r)).flatMap(ChatCompletionDecoder::macroKind);
+                case "target" -> target = target(r);
+                case "count" -> count = Math.max(0, optInt(r).orElse(0));
+                case "radius" -> radius = Math.max(0, optInt(r).orElse(0));
+                case "distance" -> distance = Math.max(0, optInt(r).orElse(0));
+                case "ticks" -> ticks = Math.max(0, optInt(r).orElse(0));
+                default -> r.skipValue();
+            }
+        }
+        r.endObject();
+        Optional<ActionSchema.Target> t = target;
+        int c = count, rad = radius, d = distance, tk = ticks;
+        return kind.map(k -> new ActionSchema.Macro(k, t, c, rad, d, tk));
+    }
+
+    private static Optional<ActionSchema.MacroKind> macroKind(String s) {
+        try { return Optional.of(ActionSchema.MacroKind.valueOf(s.toUpperCase(Locale.ROOT))); } catch (IllegalArgumentException e) { return Optional.empty(); }
+    }
+
+    private static ActionSchema.Until until(String s) {
+        try { return ActionSchema.Until.valueOf(s.toUpperCase(Locale.ROOT)); } catch (IllegalArgumentException e) { return null; }
+    }
+
+    /**
+     * Actions carrying only the streamed top-level member {@code key} (navigation, mouse, target, plan or macro), decoded from its raw
+     * JSON text; null for other keys or malformed values.
+     */
+    static ActionSchema.Actions decodeMember(String key, String rawValue) {
+        try {
+            JsonReader r = reader(new StringReader(rawValue));
+            return switch (key) {
+                case "navigation" -> new ActionSchema.Actions(ActionSchema.Chat.none(), navigation(r), ActionSchema.View.none(), ActionSchema.Mouse.none(), Optional.empty());
+                case "mouse" -> new ActionSchema.Actions(ActionSchema.Chat.none(), ActionSchema.Navigation.none(), ActionSchema.View.none(), mouse(r), Optional.empty());
+                case "target" -> new ActionSchema.Actions(ActionSchema.Chat.none(), ActionSchema.Navigation.none(), ActionSchema.View.none(), ActionSchema.Mouse.none(), target(r));
+                case "plan" -> new ActionSchema.Actions(ActionSchema.Chat.none(), ActionSchema.Navigation.none(), ActionSchema.View.none(), ActionSchema.Mouse.none(), Optional.empty(), plan(r), Optional.empty());
+                case "macro" -> new ActionSchema.Actions(ActionSchema.Chat.none(), ActionSchema.Navigation.none(), ActionSchema.View.none(), ActionSchema.Mouse.none(), Optional.empty(), List.of(), macro(r));
+                default -> null;
+            };
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static ActionSchema.Chat chat(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) return new ActionSchema.Chat(trimmed(optString(r)));
+        Optional<String> message = Optional.empty();
+        r.beginObject();
+        while (r.hasNext()) {
+            if (r.nextName().equals("message")) message = trimmed(optString(r));
+            else r.skipValue();
+        }
+        r.endObject();
+        return new ActionSchema.Chat(message);
+    }
+
+    private static ActionSchema.Navigation navigation(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) { r.skipValue(); return ActionSchema.Navigation.none(); }
+        Optional<Integer> dx = Optional.empty(), dy = Optional.empty(), dz = Optional.empty();
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "dx" -> dx = optInt(r);
+                case "dy" -> dy = optInt(r);
+                case "dz" -> dz = optInt(r);
+                default -> r.skipValue();
+            }
+        }
+        r.endObject();
+        return new ActionSchema.Navigation(dx, dy, dz);
+    }
+
+    private static ActionSchema.View view(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) { r.skipValue(); return ActionSchema.View.none(); }
+        Optional<Float> yawAbs = Optional.empty(), pitchAbs = Optional.empty(), yawDelta = Optional.empty(), pitchDelta = Optional.empty();
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "yawAbs" -> yawAbs = optFloat(r);
+                case "pitchAbs" -> pitchAbs = optFloat(r);
+                case "yawDelta" -> yawDelta = optFloat(r);
+                case "pitchDelta" -> pitchDelta = optFloat(r);
+                default -> r.skipValue();
+            }
+        }
+        r.endObject();
+        return new ActionSchema.View(yawAbs, pitchAbs, yawDelta, pitchDelta);
+    }
+
+    private static ActionSchema.Mouse mouse(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) {
+            // Single string shorthand e.g. "TAP" means the left button
+            return trimmed(optString(r)).map(s -> new ActionSchema.Mouse(press(s), ActionSchema.PressType.NONE)).orElse(ActionSchema.Mouse.none());
+        }
+        ActionSchema.PressType left = ActionSchema.PressType.NONE, right = ActionSchema.PressType.NONE;
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "left" -> left = optString(r).map(ChatCompletionDecoder::press).orElse(ActionSchema.PressType.NONE);
+                case "right" -> right = optString(r).map(ChatCompletionDecoder::press).orElse(ActionSchema.PressType.NONE);
+                default -> r.skipValue();
+            }
+        }
+        r.endObject();
+        return new ActionSchema.Mouse(left, right);
+    }
+
+    private static Optional<ActionSchema.Target> target(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) { r.skipValue(); return Optional.empty(); }
+        Optional<Integer> x = Optional.empty(), y = Optional.empty(), z = Optional.empty();
+        Optional<String> blockId = Optional.empty(), blockTag = Optional.empty(), entityType = Optional.empty(), entityName = Optional.empty();
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "x" -> x = optInt(r);
+                case "y" -> y = optInt(r);
+                case "z" -> z = optInt(r);
+                case "blockId" -> blockId = trimmed(optString(r));
+                case "blockTag" -> blockTag = trimmed(optString(r));
+                case "entityType" -> entityType = trimmed(optString(r));
+                case "entityName" -> entityName = trimmed(optString(r));
+                default -> r.skipValue();
+            }
+        }
+        r.endObject();
+        return Optional.of(new ActionSchema.Target(x, y, z, blockId, blockTag, entityType, entityName));
+    }
+
+    private static ActionSchema.PressType press(String s) {
+        try { return ActionSchema.PressType.valueOf(s.trim().toUpperCase(Locale.ROOT)); } catch (Exception ignored) { return ActionSchema.PressType.NONE; }
+    }
+
+    /** Numbers are rounded; numeric strings are accepted. */
+    private static Optional<Integer> optInt(JsonReader r) throws IOException {
+        if (r.peek() == JsonToken.NUMBER) return Optional.of((int) Math.round(r.nextDouble()));
+        return optString(r).flatMap(s -> {
+            try { return Optional.of(Integer.parseInt(s.trim())); } catch (NumberFormatException e) { return Optional.empty(); }
+        });
+    }
+
+    private static Optional<Float> optFloat(JsonReader r) throws IOException {
+        if (r.peek() == JsonToken.NUMBER) return Optional.of((float) r.nextDouble());
+        return optString(r).flatMap(s -> {
+            try { return Optional.of(Float.parseFloat(s.trim())); } catch (NumberFormatException e) { return Optional.empty(); }
+        });
+    }
+
+    private static Optional<String> trimmed(Optional<String> s) { return s.map(String::trim).filter(t -> !t.isEmpty()); }
+
+    private static JsonReader reader(Reader in) {
+        JsonReader r = new JsonReader(in);
+        r.setLenient(true);
+        return r;
+    }
+
+    private static String firstChoiceContent(JsonReader r, String messageKey) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_ARRAY) { r.skipValue(); return null; }
+        String content = null;
+        r.beginArray();
+        boolean first = true;
+        while (r.hasNext()) {
+            if (!first || r.peek() != JsonToken.BEGIN_OBJECT) { r.skipValue(); continue; }
+            first = false;
+            r.beginObject();
+            while (r.hasNext()) {
+                if (r.nextName().equals(messageKey) && r.peek() == JsonToken.BEGIN_OBJECT) {
+                    r.beginObject();
+                    while (r.hasNext()) {
+                        if (r.nextName().equals("content")) content = optString(r).orElse(null);
+                        else r.skipValue();
+                    }
+                    r.endObject();
+                } else {
+                    r.skipValue();
+                }
+            }
+            r.endObject();
+        }
+        r.endArray();
+        return content;
+    }
+
+    private static Usage usage(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) { r.skipValue(); return Usage.NONE; }
+        long total = 0, prompt = 0, cached = 0;
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "total_tokens" -> total = optLong(r);
+                case "prompt_tokens" -> prompt = optLong(r);
+                case "prompt_tokens_details" -> {
+                    if (r.peek() != JsonToken.BEGIN_OBJECT) { r.skipValue(); continue; }
+                    r.beginObject();
+                    while (r.hasNext()) {
+                        if (r.nextName().equals("cached_tokens")) cached = optLong(r);
+                        else r.skipValue();
+                    }
+                    r.endObject();
+                }
+                default -> r.skipValue();
+            }
+        }
+        r.endObject();
+        return new Usage(total, prompt, cached);
+    }
+
+    private static long optLong(JsonReader r) throws IOException {
+        if (r.peek() == JsonToken.NUMBER) return r.nextLong();
+        r.skipValue();
+        return 0;
+    }
+
+    /** Reads any scalar as text (null and containers yield empty; containers are skipped). */
+    private static Optional<String> optString(JsonReader r) throws IOException {
+        switch (r.peek()) {
+            case STRING, NUMBER -> { return Optional.of(r.nextString()); }
+            case BOOLEAN -> { return Optional.of(Boolean.toString(r.nextBoolean())); }
+            case NULL -> { r.nextNull(); return Optional.empty(); }
+            default -> { r.skipValue(); return Optional.empty(); }
+        }
+    }
+}
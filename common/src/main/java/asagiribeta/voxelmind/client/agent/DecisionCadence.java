@@ -0,0 +1,79 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.config.Config;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive decision cadence. Tracks end-to-end decision latency (EWMA plus a sliding window for percentiles) and
+ * adjusts the interval between decision starts AIMD-style: each healthy reply shortens it by one tick, a timeout or a
+ * reply much slower than the median doubles it. The interval never drops below latency EWMA / pipeline depth (starting
+ * earlier would only queue behind the in-flight requests) and stays within the configured bounds. Request timeouts
+ * derive from p99.
+ */
+public final class DecisionCadence {
+    private static final int WINDOW = 64;
+    // Percentiles are unreliable below this many samples; use the default timeout until then.
+    private static final int MIN_SAMPLES = 8;
+    private static final long DEFAULT_TIMEOUT_MS = 10_000, MIN_TIMEOUT_MS = 2_000, MAX_TIMEOUT_MS = 30_000;
+    private static final long MS_PER_TICK = 50;
+
+    private final long[] samples = new long[WINDOW];
+    private int count = 0, next = 0;
+    private double ewmaMs = -1;
+    private int intervalTicks;
+    private final Supplier<Config> config;
+
+    public DecisionCadence(int initialIntervalTicks) { this(initialIntervalTicks, Config::get); }
+
+    DecisionCadence(int initialIntervalTicks, Supplier<Config> config) {
+        this.intervalTicks = Math.max(1, initialIntervalTicks);
+        this.config = config;
+    }
+
+    /** Restarts the interval from a newly configured value; the latency history (and so the timeouts) is kept. */
+    public synchronized void reseed(int intervalTicks) { this.intervalTicks = Math.max(1, intervalTicks); }
+
+    /** Records one completed decision and applies the AIMD step; {@code depth} is the number of decisions allowed in flight. */
+    public synchronized void record(long latencyMs, boolean timedOut, int depth) {
+        long p50 = percentile(0.50);
+        samples[next] = latencyMs;
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) count++;
+        ewmaMs = ewmaMs < 0 ? latencyMs : ewmaMs * 0.8 + latencyMs * 0.2;
+
+        Config cfg = config.get();
+        boolean congested = timedOut || (p50 > 0 && count >= MIN_SAMPLES && latencyMs > 2 * p50);
+        if (congested) intervalTicks = intervalTicks * 2;
+        else intervalTicks = Math.max(intervalTicks - 1, (int) Math.ceil(ewmaMs / MS_PER_TICK / Math.max(1, depth)));
+        intervalTicks = Math.max(cfg.decisionIntervalMinTicks(), Math.min(cfg.decisionIntervalMaxTicks(), intervalTicks));
+    }
+
+    public synchronized int intervalTicks() {
+        Config cfg = config.get();
+        return Math.max(cfg.decisionIntervalMinTicks(), Math.min(cfg.decisionIntervalMaxTicks(), intervalTicks));
+    }
+
+    /** 1.5x the observed p99 (bounded), so only genuine outliers time out. */
+    public synchronized long timeoutMillis() {
+        if (count < MIN_SAMPLES) return DEFAULT_TIMEOUT_MS;
+        return Math.max(MIN_TIMEOUT_MS, Math.min(MAX_TIMEOUT_MS, percentile(0.99) * 3 / 2));
+    }
+
+    /** Observed end-to-end latency at quantile {@code q} (0-1), or -1 until enough samples have been recorded. */
+    public synchronized long latencyPercentile(double q) { return count < MIN_SAMPLES ? -1 : percentile(q); }
+
+    public synchronized String stats() {
+        if (count == 0) return "interval=" + intervalTicks() + "t, latency=n/a, timeout=" + timeoutMillis() + "ms";
+        return "interval=" + intervalTicks() + "t, latency ewma=" + Math.round(ewmaMs) + "ms p50=" + percentile(0.50)
+                + " p95=" + percentile(0.95) + " p99=" + percentile(0.99) + ", timeout=" + timeoutMillis() + "ms";
+    }
+
+    private long percentile(double q) {
+        if (count == 0) return -1;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, (int) Math.ceil(q * count) - 1)];
+    }
+}
@@ -0,0 +1,68 @@
+package asagiribeta.voxelmind.client.agent;
+
+/**
+ * Queue of pending decision triggers. Each trigger kind is queued at most once (repeats merge into the waiting entry),
+ * and the next decision always goes to the highest-priority kind waiting. One decision sees the latest frame and
+ * conversation, so it satisfies every queued trigger at once. Client thread only.
+ */
+final class DecisionScheduler {
+    /** In priority order, highest first. */
+    enum Trigger {
+        /** A reflex fired (lava, falling, melee threat, low health); see {@link ReflexLayer}. */
+        REFLEX,
+        /** The local player: /vm say, /vm now or their own chat line. */
+        USER_CHAT,
+        /** Auto-reply to another player's chat. */
+        OTHER_CHAT,
+        /** The running action plan or macro finished or was aborted. */
+        TASK_ENDED,
+        /** Decision interval elapsed. */
+        PERIODIC
+    }
+
+    private static final Trigger[] TRIGGERS = Trigger.values();
+    private final long[] queuedAtNanos = new long[TRIGGERS.length]; // 0 = not queued
+    private long merged = 0, dispatched = 0;
+    private double avgWaitMs = -1;
+    private long maxWaitMs = 0;
+
+    void request(Trigger trigger) {
+        int i = trigger.ordinal();
+        if (queuedAtNanos[i] != 0) {
+            // PERIODIC is re-requested every tick while it waits for a slot; that is not a merge worth counting
+            if (trigger != Trigger.PERIODIC) merged++;
+            return;
+        }
+        queuedAtNanos[i] = System.nanoTime();
+    }
+
+    boolean hasQueued() {
+        for (long t : queuedAtNanos) if (t != 0) return true;
+        return false;
+    }
+
+    /** Removes every queued trigger and returns the highest-priority one, or null if none; wait time is that of the oldest. */
+    Trigger poll() {
+        Trigger top = null;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < queuedAtNanos.length; i++) {
+            long t = queuedAtNanos[i];
+            if (t == 0) continue;
+            if (top == null) top = TRIGGERS[i]; else merged++;
+            oldest = Math.min(oldest, t);
+            queuedAtNanos[i] = 0;
+        }
+        if (top == null) return null;
+        long waitMs = (System.nanoTime() - oldest) / 1_000_000;
+        avgWaitMs = avgWaitMs < 0 ? waitMs : avgWaitMs * 0.8 + waitMs * 0.2;
+        maxWaitMs = Math.max(maxWaitMs, waitMs);
+        dispatched++;
+        return top;
+    }
+
+    void clear() { java.util.Arrays.fill(queuedAtNanos, 0L); }
+
+    String stats() {
+        return "queue wait avg=" + (avgWaitMs < 0 ? "n/a" : Math.round(avgWaitMs) + "ms") + " max=" + maxWaitMs + "ms, merged=" + merged + "/" + dispatched;
+    }
+}
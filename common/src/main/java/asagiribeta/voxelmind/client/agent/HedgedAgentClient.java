@@ -0,0 +1,122 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+import asagiribeta.voxelmind.config.Config;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Hedged requests: when the first attempt has not answered within the hedge delay (a latency percentile, see
+ * {@code hedge_percentile}), the same decision is sent again through the delegate (which, when routing, may pick another
+ * endpoint). The first attempt to publish anything (a partial or a successful reply) wins; the other is cancelled and its
+ * partials are ignored. A failed attempt never wins: it ends the race only when no other attempt can still answer. Hedges are
+ * capped at twice the share the percentile implies (10% of requests at p95) so a latency shift cannot double the bill.
+ */
+public final class HedgedAgentClient implements AgentClient {
+    private final AgentClient delegate;
+    private final LongSupplier hedgeDelayMillis;
+    private final IntSupplier hedgePercentile;
+    private final AtomicLong requests = new AtomicLong(), hedged = new AtomicLong(), hedgeWins = new AtomicLong();
+
+    /** {@code hedgeDelayMillis} returns a negative value while there is not enough latency history to hedge. */
+    public HedgedAgentClient(AgentClient delegate, LongSupplier hedgeDelayMillis) {
+        this(delegate, hedgeDelayMillis, () -> Config.get().hedgePercentile());
+    }
+
+    HedgedAgentClient(AgentClient delegate, LongSupplier hedgeDelayMillis, IntSupplier hedgePercentile) {
+        this.delegate = delegate;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    @Override
+    public ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, Optional<String> userGoal) {
+        return delegate.decide(screenshot, context, userGoal);
+    }
+
+    @Override
+    public ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, Optional<String> userGoal, Consumer<ActionSchema.Actions> onPartial) {
+        return delegate.decide(screenshot, context, userGoal, onPartial);
+    }
+
+    @Override
+    public CompletableFuture<ActionSchema.Actions> decideAsync(EncodedFrame screenshot, GameContext context, Optional<String> userGoal,
+                                                               Consumer<ActionSchema.Actions> onPartial, Executor executor) {
+        long n = requests.incrementAndGet();
+        long delay = hedgeDelayMillis.getAsLong();
+        double budget = 2 * (100 - hedgePercentile.getAsInt()) / 100.0;
+        if (delay < 0 || hedged.get() + 1 > budget * n) return delegate.decideAsync(screenshot, context, userGoal, onPartial, executor);
+
+        CompletableFuture<ActionSchema.Actions> result = new CompletableFuture<>();
+        AtomicInteger winner = new AtomicInteger(-1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicReferenceArray<CompletableFuture<ActionSchema.Actions>> attempts = new AtomicReferenceArray<>(2);
+        Runnable[] launch = new Runnable[2];
+        for (int i = 0; i < 2; i++) {
+            int id = i;
+            launch[i] = () -> {
+                running.incrementAndGet();
+                CompletableFuture<ActionSchema.Actions> f = delegate.decideAsync(screenshot, context, userGoal, partial -> {
+                    if (claim(winner, id, attempts)) { if (onPartial != null) onPartial.accept(partial); }
+                }, executor);
+                attempts.set(id, f);
+                f.whenComplete((a, err) -> {
+                    int left = running.decrementAndGet();
+                    if (err != null) {
+                        // A fast failure must not cancel an attempt that may still answer
+                        if (winner.get() == id || (left == 0 && winner.compareAndSet(-1, id))) result.completeExceptionally(err);
+                        return;
+                    }
+                    if (!claim(winner, id, attempts)) return;
+                    if (id == 1) hedgeWins.incrementAndGet();
+                    result.complete(a);
+                });
+                // The race may have been decided (or the decision abandoned) while this attempt was starting
+                if (result.isDone() || (winner.get() >= 0 && winner.get() != id)) f.cancel(true);
+            };
+        }
+        launch[0].run();
+        CompletableFuture.runAsync(() -> {
+            // A hedge the limiter would reject returns an empty reply at once and would win the race
+            if (result.isDone() || winner.get() >= 0 || delegate.throttledForMillis() > 0) return;
+            hedged.incrementAndGet();
+            launch[1].run();
+        }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor));
+        result.whenComplete((a, err) -> {
+            if (!result.isCancelled()) return;
+            for (int i = 0; i < 2; i++) { var f = attempts.get(i); if (f != null) f.cancel(true); }
+        });
+        return result;
+    }
+
+    /** True if attempt {@code id} is (or just became) the winner; the first claim cancels the other attempt. */
+    private static boolean claim(AtomicInteger winner, int id, AtomicReferenceArray<CompletableFuture<ActionSchema.Actions>> attempts) {
+        if (winner.compareAndSet(-1, id)) {
+            var other = attempts.get(1 - id);
+            if (other != null) other.cancel(true);
+            return true;
+        }
+        return winner.get() == id;
+    }
+
+    @Override public void warmUp() { delegate.warmUp(); }
+    @Override public void maintainConnection() { delegate.maintainConnection(); }
+    @Override public long throttledForMillis() { return delegate.throttledForMillis(); }
+    @Override public void close() { delegate.close(); }
+
+    @Override
+    public String connectionStats() {
+        long n = requests.get(), h = hedged.get();
+        return delegate.connectionStats() + ", hedged=" + h + "/" + n + (n > 0 ? String.format(" (%.1f%%)", 100.0 * h / n) : "")
+                + " won=" + hedgeWins.get();
+    }
+}
@@ -1,18 +1,35 @@
 package asagiribeta.voxelmind.client.agent;
 
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
 import asagiribeta.voxelmind.config.Config;
 import com.google.gson.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Base64;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * HTTP agent using an OpenAI-compatible chat.completions API.
@@ -26,9 +43,56 @@ public final class HttpAgentClient implements AgentClient {
     private final Gson gson = new GsonBuilder().create();
     private static final Logger LOGGER = LogManager.getLogger("VoxelMind-AI");
 
+    // Endpoint identity is fixed per instance; the controller builds a new client only when one of these changes.
+    private final String url;
+    private final String model;
+    private final String apiKey;
+    private final LongSupplier requestTimeoutMillis;
+    private final ExchangeListener listener;
+    private final Supplier<Config> config;
+    private final RateLimiter limiter;
+    private final AtomicLong promptTokens = new AtomicLong(), cachedPromptTokens = new AtomicLong();
+    // Serialized request head (model, options, system message); identical bytes on every request so providers can cache it
+    private final String requestPrefix;
+
+    /** Told the outcome of every completed (not cancelled) request; used by {@link RoutingAgentClient} for endpoint health. */
+    interface ExchangeListener {
+        /** {@code ok} is false for transport errors, timeouts and 5xx replies. */
+        void onExchange(boolean ok, boolean timedOut, long latencyMs);
+    }
+
+    // Connection upkeep. java.net.http does not expose pool reuse, so a request counts as warm when the previous exchange
+    // finished within the JDK's keep-alive window (pooled connections idle longer than that are closed).
+    private static final long POOL_IDLE_NANOS = 30_000_000_000L;
+    private final AtomicLong lastExchangeNanos = new AtomicLong(0L);
+    private final AtomicBoolean pingInFlight = new AtomicBoolean(false);
+    private final AtomicLong warmRequests = new AtomicLong(), coldRequests = new AtomicLong();
+    private final AtomicLong pings = new AtomicLong(), pingFailures = new AtomicLong();
+    private volatile double avgWarmMs = -1, avgColdMs = -1;
+    private volatile String lastHttpVersion = "n/a";
+
+    public HttpAgentClient(String agentUrl, String model, String apiKey, LongSupplier requestTimeoutMillis) {
+        this(agentUrl, model, apiKey, requestTimeoutMillis, null);
+    }
+
+    HttpAgentClient(String agentUrl, String model, String apiKey, LongSupplier requestTimeoutMillis, ExchangeListener listener) {
+        this(agentUrl, model, apiKey, requestTimeoutMillis, listener, Config::get);
+    }
+
+    HttpAgentClient(String agentUrl, String model, String apiKey, LongSupplier requestTimeoutMillis, ExchangeListener listener, Supplier<Config> config) {
+        this.url = normalizeEndpoint(agentUrl == null ? "" : agentUrl.trim());
+        this.model = model == null || model.isEmpty() ? "gpt-4o-mini" : model;
+        this.apiKey = apiKey == null ? "" : apiKey;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        this.listener = listener;
+        this.config = config;
+        this.limiter = new RateLimiter(config);
+        this.requestPrefix = buildRequestPrefix();
+    }
+
     private static final String SYSTEM_INSTRUCTION = """
         You are a Minecraft AI agent AND in-game assistant.
-        Always output ONLY a single strict JSON object with keys: chat, navigation, mouse, target (omit view unless critical). No markdown or extra text.
+        Always output ONLY a single strict JSON object with keys in this order: navigation, mouse, target, macro, plan, chat (omit view unless critical). No markdown or extra text.
         If the provided context contains a line starting with 'AnswerOnlyMode: true' then you MUST:
           - Only answer as chat.message (or null if no reply needed)
           - Set navigation.dx/dy/dz = null, target fields = null, mouse.left/right = \"NONE\"
@@ -45,6 +109,16 @@ public final class HttpAgentClient implements AgentClient {
         - Only one targeting strategy at a time: coordinates OR blockId/blockTag OR entityType/entityName.
         - If no action is needed, navigation & target should be null and mouse NONE.
         - mouse.left/right: NONE|TAP|HOLD|RELEASE. Use TAP for one-shot interactions; HOLD only if sustained.
+        - plan (optional): for multi-step tasks, an array of up to 16 steps run locally, one after another, without asking you again until the plan ends.
+          Each step may have navigation, mouse, target and chat, plus "until": "arrive" (navigation reached), "block_broken" (aimed block is gone) or "ticks" with "ticks": N (20 ticks = 1 s).
+          For arrive/block_broken, "ticks" is a time limit. Lock the target one step before holding the mouse on it. Example:
+          [{"navigation":{"dx":3,"dy":0,"dz":0},"until":"arrive"},{"target":{"blockTag":"minecraft:logs"},"until":"ticks","ticks":5},{"mouse":{"left":"HOLD"},"until":"block_broken","ticks":200},{"mouse":{"left":"RELEASE"},"until":"ticks","ticks":1}]
+          A line starting with 'Plan:' after the world line reports the running plan or how the last one ended.
+        - macro (optional): a local action that runs at full tick rate until done, instead of many small steps:
+          {"name": "mine_target_until_broken" | "follow_entity" | "collect_nearby_items" | "goto_block_of_type", "target": {...}, "count": N, "radius": R, "distance": D, "ticks": T}
+          mine_target_until_broken mines count matching blocks (default 1); goto_block_of_type walks to the nearest matching block; both need a block target.
+          follow_entity keeps within distance of an entity target for ticks; collect_nearby_items picks up dropped items within radius. Omit optional numbers for defaults.
+          A macro may also be a plan step (it waits until the macro ends). A 'Macro:' line reports the running macro or its outcome.
         - Never invent entities/blocks you cannot infer from typical player context.
         - NEVER output extra keys or explanations. Return valid JSON only.
         Anti-repetition / silence rules:
@@ -55,95 +129,315 @@ public final class HttpAgentClient implements AgentClient {
     """;
 
     @Override
-    public ActionSchema.Actions decide(byte[] screenshotPngBytes, GameContext context, java.util.Optional<String> userGoal) {
-        String rawUrl = Config.get().agentUrl();
-        if (rawUrl == null || rawUrl.isEmpty()) return ActionSchema.Actions.none();
-        String url = normalizeEndpoint(rawUrl);
+    public ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, java.util.Optional<String> userGoal) {
+        return decide(screenshot, context, userGoal, null);
+    }
+
+    @Override
+    public void warmUp() { ping("warm-up", null); }
+
+    @Override
+    public void maintainConnection() {
+        int keepAlive = config.get().keepAliveSeconds();
+        if (keepAlive <= 0) return;
+        long last = lastExchangeNanos.get();
+        if (last != 0L && System.nanoTime() - last < keepAlive * 1_000_000_000L) return;
+        ping("keep-alive", null);
+    }
+
+    /** Aborts whatever is still in flight (pings, probes) and shuts down the selector thread and connection pool. */
+    @Override
+    public void close() { client.shutdownNow(); }
+
+    /** Background health probe: reports whether the endpoint answered the HEAD with anything below 500. */
+    void probe(Consumer<Boolean> onResult) { ping("probe", onResult); }
+
+    @Override
+    public String connectionStats() {
+        return "http=" + lastHttpVersion
+                + ", warm=" + warmRequests.get() + " (avg " + fmtMs(avgWarmMs) + ")"
+                + ", cold=" + coldRequests.get() + " (avg " + fmtMs(avgColdMs) + ")"
+                + ", pings=" + pings.get() + (pingFailures.get() > 0 ? " (failed " + pingFailures.get() + ")" : "")
+                + ", " + limiter.stats()
+                + (promptTokens.get() > 0 ? String.format(", cached=%d/%d prompt tokens", cachedPromptTokens.get(), promptTokens.get()) : "");
+    }
+
+    private void recordCacheUsage(ChatCompletionDecoder.Usage usage) {
+        if (usage.promptTokens() <= 0) return;
+        promptTokens.addAndGet(usage.promptTokens());
+        cachedPromptTokens.addAndGet(usage.cachedTokens());
+        if (config.get().debug()) LOGGER.info("[VoxelMind][AI cache] prompt={} cached={} ({}%)", usage.promptTokens(), usage.cachedTokens(), usage.cachedTokens() * 100 / usage.promptTokens());
+    }
+
+    @Override
+    public long throttledForMillis() { return limiter.waitMillis(); }
+
+    String rateLimitStats() { return limiter.stats(); }
+
+    /** HEAD to the endpoint: cheap, unbilled, and enough to complete DNS/TCP/TLS/HTTP2 setup. The status code is irrelevant. */
+    private void ping(String why, Consumer<Boolean> onResult) {
+        if (url.isEmpty() || !pingInFlight.compareAndSet(false, true)) return;
         try {
-            HttpRequest request = buildOpenAIStyleRequest(url, screenshotPngBytes, context, userGoal);
-            HttpResponse<String> resp = client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-            if (resp.statusCode() / 100 != 2) {
-                if (Config.get().debug()) {
-                    String body = resp.body();
-                    if (body != null && body.length() > 200) body = body.substring(0, 200) + "...";
-                    return debugSelf("HTTP " + resp.statusCode() + " from " + url + (body == null || body.isEmpty() ? "" : ": " + body));
+            HttpRequest req = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(5))
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+            pings.incrementAndGet();
+            client.sendAsync(req, HttpResponse.BodyHandlers.discarding()).whenComplete((resp, err) -> {
+                pingInFlight.set(false);
+                if (err != null) {
+                    pingFailures.incrementAndGet();
+                    if (config.get().debug()) LOGGER.info("[VoxelMind][AI conn] {} to {} failed: {}", why, url, err.getClass().getSimpleName());
+                    if (onResult != null) onResult.accept(false);
+                    return;
                 }
-                return ActionSchema.Actions.none();
+                lastExchangeNanos.set(System.nanoTime());
+                lastHttpVersion = resp.version().name();
+                if (onResult != null) onResult.accept(resp.statusCode() < 500);
+            });
+        } catch (Exception e) {
+            pingInFlight.set(false);
+            pingFailures.incrementAndGet();
+            if (onResult != null) onResult.accept(false);
+        }
+    }
+
+    private boolean isWarm() {
+        long last = lastExchangeNanos.get();
+        return last != 0L && System.nanoTime() - last < POOL_IDLE_NANOS;
+    }
+
+    private void recordExchange(boolean warm, long startNanos, HttpClient.Version version) {
+        long now = System.nanoTime();
+        double ms = (now - startNanos) / 1e6;
+        if (warm) { warmRequests.incrementAndGet(); avgWarmMs = avgWarmMs < 0 ? ms : avgWarmMs * 0.8 + ms * 0.2; }
+        else { coldRequests.incrementAndGet(); avgColdMs = avgColdMs < 0 ? ms : avgColdMs * 0.8 + ms * 0.2; }
+        lastExchangeNanos.set(now);
+        lastHttpVersion = version.name();
+    }
+
+    private static String fmtMs(double ms) { return ms < 0 ? "n/a" : String.format("%.0fms", ms); }
+
+    @Override
+    public ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, java.util.Optional<String> userGoal, Consumer<ActionSchema.Actions> onPartial) {
+        try { return decideAsync(screenshot, context, userGoal, onPartial, Runnable::run).join(); }
+        catch (java.util.concurrent.CompletionException e) { return ActionSchema.Actions.none(); }
+    }
+
+    /**
+     * Sent with {@link HttpClient#sendAsync}; cancelling the returned future aborts the exchange (before the response
+     * headers) or closes the response body (while a reply is streaming). Response handling runs on {@code executor}.
+     */
+    @Override
+    public CompletableFuture<ActionSchema.Actions> decideAsync(EncodedFrame screenshot, GameContext context, java.util.Optional<String> userGoal,
+                                                               Consumer<ActionSchema.Actions> onPartial, Executor executor) {
+        if (url.isEmpty()) return CompletableFuture.completedFuture(ActionSchema.Actions.none());
+        long reserved = limiter.tryAcquire();
+        if (reserved < 0) {
+            if (config.get().debug()) LOGGER.info("[VoxelMind][AI] Request to {} held by rate limiter: {}", url, limiter.stats());
+            return CompletableFuture.failedFuture(new RateLimitedException(limiter.waitMillis()));
+        }
+        boolean stream = config.get().streamResponses();
+        Set<String> published = new HashSet<>();
+        HttpRequest request;
+        try {
+            request = buildOpenAIStyleRequest(url, screenshot, context, userGoal, stream);
+        } catch (Exception e) {
+            limiter.refund(reserved);
+            return CompletableFuture.failedFuture(requestError(e));
+        }
+        boolean warm = isWarm();
+        long t0 = System.nanoTime();
+        CompletableFuture<ActionSchema.Actions> result;
+        CompletableFuture<? extends HttpResponse<?>> exchange;
+        AtomicReference<AutoCloseable> body = new AtomicReference<>();
+        // Tokens the reply reported (0 for a reply without usage); stays -1 when no reply came
+        AtomicLong usage = new AtomicLong(-1);
+        if (stream) {
+            var http = client.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+            exchange = http;
+            result = http.thenApplyAsync(resp -> {
+                recordExchange(warm, t0, resp.version()); // time to headers; the body keeps streaming
+                report(resp.statusCode() < 500, false, t0);
+                limiter.onResponse(resp.statusCode(), resp.headers());
+                body.set(resp.body());
+                // Streamed replies carry no usage; once the server has accepted the request the estimate is its cost
+                if (resp.statusCode() / 100 == 2) usage.set(0);
+                String content = readStreamedContent(resp, url, onPartial, published);
+                if (content == null) throw new AgentReplyException("No usable reply (HTTP " + resp.statusCode() + ")");
+                return withoutPublished(parseContent(content), published);
+            }, executor);
+        } else {
+            // The body is decoded as it arrives rather than collected into a String first
+            var http = client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+            exchange = http;
+            result = http.thenApplyAsync(resp -> {
+                recordExchange(warm, t0, resp.version());
+                report(resp.statusCode() < 500, false, t0);
+                limiter.onResponse(resp.statusCode(), resp.headers());
+                body.set(resp.body());
+                String content = readContent(resp, url, usage);
+                if (content == null) throw new AgentReplyException("No usable reply (HTTP " + resp.statusCode() + ")");
+                return parseContent(content);
+            }, executor);
+        }
+        // HttpClient's own futures do not support cancelling dependent stages, and cancellation never travels upstream
+        // anyway; hand out a plain future and forward its cancellation by hand.
+        CompletableFuture<ActionSchema.Actions> handled = new CompletableFuture<>();
+        result.whenComplete((a, err) -> {
+            if (err != null && exchange.isCompletedExceptionally() && !handled.isCancelled()) {
+                Throwable cause = err instanceof java.util.concurrent.CompletionException && err.getCause() != null ? err.getCause() : err;
+                report(false, cause instanceof java.net.http.HttpTimeoutException, t0);
             }
-            String content = null;
-            JsonElement je = JsonParser.parseString(resp.body());
-            if (je.isJsonObject()) {
-                JsonObject obj = je.getAsJsonObject();
-                if (obj.has("choices") && obj.get("choices").isJsonArray() && obj.getAsJsonArray("choices").size() > 0) {
-                    JsonObject choice0 = obj.getAsJsonArray("choices").get(0).getAsJsonObject();
-                    JsonObject msg = choice0.has("message") && choice0.get("message").isJsonObject()
-                            ? choice0.getAsJsonObject("message") : null;
-                    if (msg != null && msg.has("content")) {
-                        content = msg.get("content").getAsString();
-                    }
-                }
+            // Failures complete exceptionally so callers (hedging, the controller) can tell them from an empty decision
+            if (err != null) handled.completeExceptionally(requestError(err)); else handled.complete(a);
+        });
+        handled.whenComplete((a, err) -> {
+            // The one place the reservation is settled, whatever the outcome (reply, HTTP error, timeout, cancel, lost hedge)
+            long used = usage.get();
+            if (used < 0) limiter.refund(reserved); else limiter.onUsage(reserved, used);
+            if (!handled.isCancelled()) return;
+            exchange.cancel(true);
+            AutoCloseable open = body.get();
+            if (open != null) try { open.close(); } catch (Exception ignored) {}
+        });
+        return handled;
+    }
+
+    private void report(boolean ok, boolean timedOut, long startNanos) {
+        if (listener != null) listener.onExchange(ok, timedOut, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /** Unwraps (and logs when debug is on) the cause a failed decision completes with. */
+    private Throwable requestError(Throwable e) {
+        if (e instanceof java.util.concurrent.CompletionException && e.getCause() != null) e = e.getCause();
+        if (config.get().debug()) debugSelf("Request error to " + url + ": " + e.getClass().getSimpleName());
+        return e;
+    }
+
+    /** Returns the assistant content or null (logged when debug is on); reports the reply's token usage to {@code usage}. */
+    private String readContent(HttpResponse<InputStream> resp, String url, AtomicLong usage) {
+        try (InputStream in = resp.body()) {
+            if (resp.statusCode() / 100 != 2) {
+                logHttpError(resp.statusCode(), url, new String(in.readNBytes(4096), StandardCharsets.UTF_8));
+                return null;
             }
-            if (content == null) {
-                if (Config.get().debug()) {
-                    return debugSelf("No content in response from " + url);
-                }
-                return ActionSchema.Actions.none();
+            ChatCompletionDecoder.Envelope env = ChatCompletionDecoder.decodeEnvelope(new InputStreamReader(in, StandardCharsets.UTF_8));
+            usage.set(env.usage().totalTokens());
+            recordCacheUsage(env.usage());
+            if (env.content() == null && config.get().debug()) debugSelf("No content in response from " + url);
+            return env.content();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Streaming request: accumulates choices[0].delta.content from server-sent events and publishes navigation,
+     * mouse, target, plan and macro through {@code onPartial} as soon as each member is complete. Servers that ignore
+     * "stream" and answer with a plain JSON body are handled too.
+     */
+    private String readStreamedContent(HttpResponse<Stream<String>> resp, String url, Consumer<ActionSchema.Actions> onPartial, Set<String> published) {
+        try (Stream<String> lines = resp.body()) {
+            if (resp.statusCode() / 100 != 2) {
+                logHttpError(resp.statusCode(), url, lines.limit(20).collect(Collectors.joining("\n")));
+                return null;
             }
-            if (Config.get().debug()) {
-                String trimmed = content.length() > 1000 ? content.substring(0,1000) + "..." : content;
-                LOGGER.info("[VoxelMind][AI raw] {}", trimmed);
+            StreamingActionParser parser = new StreamingActionParser((key, raw) -> {
+                if (onPartial == null || key == null) return;
+                ActionSchema.Actions partial = ChatCompletionDecoder.decodeMember(key, raw);
+                if (partial == null || !published.add(key)) return;
+                if (config.get().debug()) LOGGER.info("[VoxelMind][AI stream] early {}", key);
+                onPartial.accept(partial);
+            });
+            StringBuilder plain = null;
+            for (var it = lines.iterator(); it.hasNext();) {
+                String line = it.next();
+                if (plain != null) { plain.append(line).append('\n'); continue; }
+                if (line.isBlank() || line.startsWith(":")) continue;
+                if (!line.startsWith("data:")) { plain = new StringBuilder(line).append('\n'); continue; }
+                String data = line.substring(5).trim();
+                if (data.equals("[DONE]")) break;
+                parser.feed(ChatCompletionDecoder.decodeDeltaContent(data));
             }
-            try {
-                JsonElement parsedJson = JsonParser.parseString(content);
-                ActionSchema.Actions actions = parseActionsFlexible(parsedJson);
-                if (Config.get().debug()) {
-                    // Re-serialize normalized actions summary
-                    JsonObject summary = new JsonObject();
-                    JsonObject nav = new JsonObject();
-                    addOptional(nav, "dx", actions.navigation().dx());
-                    addOptional(nav, "dy", actions.navigation().dy());
-                    addOptional(nav, "dz", actions.navigation().dz());
-                    JsonObject tgt = new JsonObject();
-                    if (actions.target().isPresent()) {
-                        var t = actions.target().get();
-                        tgt.addProperty("hasPos", t.hasPos());
-                        addOptional(tgt, "blockId", t.blockId());
-                        addOptional(tgt, "blockTag", t.blockTag());
-                        addOptional(tgt, "entityType", t.entityType());
-                        addOptional(tgt, "entityName", t.entityName());
-                    } else {
-                        tgt.addProperty("hasPos", false);
-                        tgt.add("blockId", JsonNull.INSTANCE);
-                        tgt.add("blockTag", JsonNull.INSTANCE);
-                        tgt.add("entityType", JsonNull.INSTANCE);
-                        tgt.add("entityName", JsonNull.INSTANCE);
-                    }
-                    JsonObject mouse = new JsonObject();
-                    mouse.addProperty("left", actions.mouse().left().name());
-                    mouse.addProperty("right", actions.mouse().right().name());
-                    JsonObject chat = new JsonObject();
-                    addOptional(chat, "message", actions.chat().message());
-                    summary.add("navigation", nav);
-                    summary.add("target", tgt);
-                    summary.add("mouse", mouse);
-                    summary.add("chat", chat);
-                    LOGGER.info("[VoxelMind][AI parsed] {}", summary.toString());
-                }
-                return actions;
-            } catch (Exception e) {
-                String extracted = extractFirstJsonObject(content);
-                if (extracted != null) {
-                    try { return parseActionsFlexible(JsonParser.parseString(extracted)); } catch (Exception ignored) {}
-                }
-                if (Config.get().debug()) {
-                    String snippet = content.length() > 200 ? content.substring(0, 200) + "..." : content;
-                    return debugSelf("Parse error for content: " + snippet);
+            String content = plain != null ? plainContent(plain.toString()) : parser.content();
+            if (content == null || content.isEmpty()) {
+                if (config.get().debug()) debugSelf("No content in stream from " + url);
+                return null;
+            }
+            return content;
+        }
+    }
+
+    private void logHttpError(int status, String url, String body) {
+        if (!config.get().debug()) return;
+        if (body != null && body.length() > 200) body = body.substring(0, 200) + "...";
+        debugSelf("HTTP " + status + " from " + url + (body == null || body.isEmpty() ? "" : ": " + body));
+    }
+
+    private static String plainContent(String body) {
+        try { return ChatCompletionDecoder.decodeEnvelope(new StringReader(body)).content(); } catch (IOException e) { return null; }
+    }
+
+    /** Blanks fields already delivered through onPartial so they are not applied twice (e.g. a repeated TAP). */
+    private static ActionSchema.Actions withoutPublished(ActionSchema.Actions a, Set<String> published) {
+        if (published.isEmpty()) return a;
+        return new ActionSchema.Actions(a.chat(),
+                published.contains("navigation") ? ActionSchema.Navigation.none() : a.navigation(),
+                a.view(),
+                published.contains("mouse") ? ActionSchema.Mouse.none() : a.mouse(),
+                published.contains("target") ? Optional.empty() : a.target(),
+                published.contains("plan") ? java.util.List.of() : a.plan(),
+                published.contains("macro") ? Optional.empty() : a.macro());
+    }
+
+    private ActionSchema.Actions parseContent(String content) {
+        if (config.get().debug()) {
+            String trimmed = content.length() > 1000 ? content.substring(0,1000) + "..." : content;
+            LOGGER.info("[VoxelMind][AI raw] {}", trimmed);
+        }
+        try {
+            ActionSchema.Actions actions = ChatCompletionDecoder.decodeActions(content);
+            if (config.get().debug()) {
+                // Re-serialize normalized actions summary
+                JsonObject summary = new JsonObject();
+                JsonObject nav = new JsonObject();
+                addOptional(nav, "dx", actions.navigation().dx());
+                addOptional(nav, "dy", actions.navigation().dy());
+                addOptional(nav, "dz", actions.navigation().dz());
+                JsonObject tgt = new JsonObject();
+                if (actions.target().isPresent()) {
+                    var t = actions.target().get();
+                    tgt.addProperty("hasPos", t.hasPos());
+                    addOptional(tgt, "blockId", t.blockId());
+                    addOptional(tgt, "blockTag", t.blockTag());
+                    addOptional(tgt, "entityType", t.entityType());
+                    addOptional(tgt, "entityName", t.entityName());
+                } else {
+                    tgt.addProperty("hasPos", false);
+                    tgt.add("blockId", JsonNull.INSTANCE);
+                    tgt.add("blockTag", JsonNull.INSTANCE);
+                    tgt.add("entityType", JsonNull.INSTANCE);
+                    tgt.add("entityName", JsonNull.INSTANCE);
                 }
-                return ActionSchema.Actions.none();
+                JsonObject mouse = new JsonObject();
+                mouse.addProperty("left", actions.mouse().left().name());
+                mouse.addProperty("right", actions.mouse().right().name());
+                JsonObject chat = new JsonObject();
+                addOptional(chat, "message", actions.chat().message());
+                summary.add("navigation", nav);
+                summary.add("target", tgt);
+                summary.add("mouse", mouse);
+                summary.add("chat", chat);
+                actions.macro().ifPresent(m -> summary.addProperty("macro", m.kind().name().toLowerCase()));
+                if (!actions.plan().isEmpty()) summary.addProperty("plan", actions.plan().stream().map(st -> st.until().name().toLowerCase()).collect(Collectors.joining(",")));
+                LOGGER.info("[VoxelMind][AI parsed] {}", summary.toString());
             }
+            return actions;
         } catch (Exception e) {
-            if (Config.get().debug()) {
-                return debugSelf("Request error to " + url + ": " + e.getClass().getSimpleName());
+            if (config.get().debug()) {
+                String snippet = content.length() > 200 ? content.substring(0, 200) + "..." : content;
+                return debugSelf("Parse error for content: " + snippet);
             }
             return ActionSchema.Actions.none();
         }
@@ -163,192 +457,71 @@ public final class HttpAgentClient implements AgentClient {
         return ActionSchema.Actions.none();
     }
 
-    private static String extractFirstJsonObject(String s) {
-        int start = s.indexOf('{');
-        int end = s.lastIndexOf('}');
-        if (start >= 0 && end > start) return s.substring(start, end + 1);
-        return null;
+    /**
+     * Messages go from most to least stable so the longest possible prefix is byte-identical between requests (provider
+     * prefix / KV caching): the precomputed head with the system instruction, then the conversation (append-only until
+     * the history limit prunes it), then the volatile world state and the image. World values are rounded so that
+     * standing still does not change the bytes either.
+     */
+    private HttpRequest buildOpenAIStyleRequest(String url, EncodedFrame frame, GameContext context, java.util.Optional<String> userGoal, boolean stream) {
+        return baseRequest(url).POST(requestBody(frame, context, userGoal, stream)).build();
     }
 
-    private HttpRequest buildOpenAIStyleRequest(String url, byte[] png, GameContext context, java.util.Optional<String> userGoal) {
-        String model = Config.get().model().isEmpty() ? "gpt-4o-mini" : Config.get().model();
-        String dataUri = "data:image/png;base64," + Base64.getEncoder().encodeToString(png);
+    /**
+     * The image URL is the last string in the body, so the envelope is written in two halves around it and the base64
+     * data URI goes in between while sending. Nothing is searched for in the serialized text: the conversation and the
+     * world prompt may contain anything (other players' chat included) without moving the splice point.
+     */
+    HttpRequest.BodyPublisher requestBody(EncodedFrame frame, GameContext context, java.util.Optional<String> userGoal, boolean stream) {
+        StringBuilder head = new StringBuilder(requestPrefix.length() + 2048).append(requestPrefix);
+        userGoal.filter(g -> !g.isBlank()).ifPresent(convo -> head.append(',').append(gson.toJson(textMessage(convo))));
 
+        JsonObject partText = new JsonObject();
+        partText.addProperty("type", "text");
+        partText.addProperty("text", buildUserPrompt(context));
+        // Same bytes as a serialized {"role":"user","content":[text, {"type":"image_url","image_url":{"url":...}}]}
+        head.append(",{\"role\":\"user\",\"content\":[").append(gson.toJson(partText))
+                .append(",{\"type\":\"image_url\",\"image_url\":{\"url\":\"");
+        String tail = "\"}}]}]" + (stream ? ",\"stream\":true" : "") + "}";
+        return ImageRequestBody.publisher(head.toString(), tail, frame);
+    }
+
+    /** Everything up to (not including) the end of the messages array. */
+    private String buildRequestPrefix() {
         JsonObject root = new JsonObject();
         root.addProperty("model", model);
         root.add("response_format", jsonObject("type", new JsonPrimitive("json_object")));
         root.addProperty("temperature", 0);
-
-        JsonArray messages = new JsonArray();
         JsonObject sys = new JsonObject();
         sys.addProperty("role", "system");
         sys.addProperty("content", SYSTEM_INSTRUCTION);
-        messages.add(sys);
-        JsonObject user = new JsonObject();
-        user.addProperty("role", "user");
-        JsonArray content = new JsonArray();
-        JsonObject partText = new JsonObject();
-        partText.addProperty("type", "text");
-        partText.addProperty("text", buildUserPrompt(context, userGoal));
-        content.add(partText);
-        JsonObject partImage = new JsonObject();
-        partImage.addProperty("type", "image_url");
-        JsonObject imageObj = new JsonObject();
-        imageObj.addProperty("url", dataUri);
-        partImage.add("image_url", imageObj);
-        content.add(partImage);
-        user.add("content", content);
-        messages.add(user);
-
-        root.add("messages", messages);
-
-        HttpRequest.Builder rb = baseRequest(url)
-                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(root), StandardCharsets.UTF_8));
-        return rb.build();
+        String json = gson.toJson(root);
+        return json.substring(0, json.length() - 1) + ",\"messages\":[" + gson.toJson(sys);
+    }
+
+    private static JsonObject textMessage(String text) {
+        JsonObject m = new JsonObject();
+        m.addProperty("role", "user");
+        m.addProperty("content", text);
+        return m;
     }
 
-    private static String buildUserPrompt(GameContext c, java.util.Optional<String> extraContext) {
-        String base = "World: dimension=" + c.dimension() + ", biome=" + c.biome() +
-                ", pos=(" + c.x() + "," + c.y() + "," + c.z() + ") yaw=" + c.yaw() + ", pitch=" + c.pitch() + ".";
-        String convo = extraContext.map(s -> "\n" + s).orElse("");
-        return base + convo + "\nDecide next JSON Actions now.";
+    private static String buildUserPrompt(GameContext c) {
+        return String.format(java.util.Locale.ROOT, "World: dimension=%s, biome=%s, pos=(%.1f,%.1f,%.1f) yaw=%.0f, pitch=%.0f.%n%sDecide next JSON Actions now.",
+                c.dimension(), c.biome(), c.x(), c.y(), c.z(), c.yaw(), c.pitch(), c.status().isEmpty() ? "" : c.status() + "\n");
     }
 
     private HttpRequest.Builder baseRequest(String url) {
         HttpRequest.Builder rb = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofMillis(Math.max(1000, Config.get().decisionIntervalTicks() * 400L)))
+                .timeout(Duration.ofMillis(requestTimeoutMillis.getAsLong()))
                 .header("Content-Type", "application/json");
-        String key = Config.get().apiKey();
-        if (key != null && !key.isEmpty()) rb.header("Authorization", "Bearer " + key);
+        if (!apiKey.isEmpty()) rb.header("Authorization", "Bearer " + apiKey);
         return rb;
     }
 
     private static JsonObject jsonObject(String k, JsonElement v) { JsonObject o = new JsonObject(); o.add(k, v); return o; }
 
     // New flexible parser that tolerates simplified forms produced by the model.
-    private ActionSchema.Actions parseActionsFlexible(JsonElement je) {
-        if (!(je instanceof JsonObject root)) return ActionSchema.Actions.none();
-        // chat may be object {message:".."} OR primitive string
-        ActionSchema.Chat chat = parseChatFlexible(root.get("chat"));
-        ActionSchema.Navigation nav = parseNavigationFlexible(root.get("navigation"));
-        ActionSchema.View view = parseViewFlexible(root.get("view"));
-        ActionSchema.Mouse mouse = parseMouseFlexible(root.get("mouse"));
-        Optional<ActionSchema.Target> target = parseTargetFlexible(root.get("target"));
-        return new ActionSchema.Actions(chat, nav, view, mouse, target);
-    }
-
-    private static ActionSchema.Chat parseChatFlexible(JsonElement el) {
-        if (el == null || el.isJsonNull()) return ActionSchema.Chat.none();
-        if (el.isJsonObject()) {
-            JsonObject o = el.getAsJsonObject();
-            if (o.has("message") && !o.get("message").isJsonNull()) {
-                String m = o.get("message").getAsString();
-                if (m != null && !m.isBlank()) return new ActionSchema.Chat(Optional.of(m.trim()));
-            }
-            return ActionSchema.Chat.none();
-        }
-        if (el.isJsonPrimitive()) {
-            try {
-                String m = el.getAsString();
-                if (m != null && !m.isBlank()) return new ActionSchema.Chat(Optional.of(m.trim()));
-            } catch (Exception ignored) {}
-        }
-        return ActionSchema.Chat.none();
-    }
-
-    private static ActionSchema.Navigation parseNavigationFlexible(JsonElement el) {
-        if (el == null || el.isJsonNull()) return ActionSchema.Navigation.none();
-        if (!el.isJsonObject()) return ActionSchema.Navigation.none();
-        JsonObject o = el.getAsJsonObject();
-        Optional<Integer> dx = o.has("dx") && !o.get("dx").isJsonNull() ? safeInt(o.get("dx")) : Optional.empty();
-        Optional<Integer> dy = o.has("dy") && !o.get("dy").isJsonNull() ? safeInt(o.get("dy")) : Optional.empty();
-        Optional<Integer> dz = o.has("dz") && !o.get("dz").isJsonNull() ? safeInt(o.get("dz")) : Optional.empty();
-        return new ActionSchema.Navigation(dx, dy, dz);
-    }
-
-    private static Optional<Integer> safeInt(JsonElement e) {
-        try {
-            if (e != null && e.isJsonPrimitive()) {
-                JsonPrimitive p = e.getAsJsonPrimitive();
-                if (p.isNumber()) return Optional.of((int)Math.round(p.getAsDouble()));
-                if (p.isString()) return Optional.of(Integer.parseInt(p.getAsString().trim()));
-            }
-        } catch (Exception ignored) {}
-        return Optional.empty();
-    }
-
-    private static ActionSchema.View parseViewFlexible(JsonElement el) {
-        if (el == null || el.isJsonNull() || !el.isJsonObject()) return ActionSchema.View.none();
-        JsonObject o = el.getAsJsonObject();
-        Optional<Float> yawAbs = optFloat(o, "yawAbs");
-        Optional<Float> pitchAbs = optFloat(o, "pitchAbs");
-        Optional<Float> yawDelta = optFloat(o, "yawDelta");
-        Optional<Float> pitchDelta = optFloat(o, "pitchDelta");
-        return new ActionSchema.View(yawAbs, pitchAbs, yawDelta, pitchDelta);
-    }
-
-    private static Optional<Float> optFloat(JsonObject o, String k) {
-        if (!o.has(k) || o.get(k).isJsonNull()) return Optional.empty();
-        try {
-            JsonElement e = o.get(k);
-            if (e.isJsonPrimitive()) {
-                JsonPrimitive p = e.getAsJsonPrimitive();
-                if (p.isNumber()) return Optional.of(p.getAsFloat());
-                if (p.isString()) return Optional.of(Float.parseFloat(p.getAsString().trim()));
-            }
-        } catch (Exception ignored) {}
-        return Optional.empty();
-    }
-
-    private static Optional<ActionSchema.Target> parseTargetFlexible(JsonElement el) {
-        if (el == null || el.isJsonNull() || !el.isJsonObject()) return Optional.empty();
-        JsonObject o = el.getAsJsonObject();
-        Optional<Integer> x = safeInt(o.get("x"));
-        Optional<Integer> y = safeInt(o.get("y"));
-        Optional<Integer> z = safeInt(o.get("z"));
-        Optional<String> blockId = optString(o, "blockId");
-        Optional<String> blockTag = optString(o, "blockTag");
-        Optional<String> entityType = optString(o, "entityType");
-        Optional<String> entityName = optString(o, "entityName");
-        ActionSchema.Target tgt = new ActionSchema.Target(x,y,z,blockId,blockTag,entityType,entityName);
-        return Optional.of(tgt);
-    }
-
-    private static Optional<String> optString(JsonObject o, String k) {
-        if (!o.has(k) || o.get(k).isJsonNull()) return Optional.empty();
-        try {
-            String s = o.get(k).getAsString();
-            if (s != null) {
-                String t = s.trim();
-                if (!t.isEmpty()) return Optional.of(t);
-            }
-        } catch (Exception ignored) {}
-        return Optional.empty();
-    }
-
-    private static ActionSchema.Mouse parseMouseFlexible(JsonElement el) {
-        if (el == null || el.isJsonNull()) return ActionSchema.Mouse.none();
-        if (el.isJsonPrimitive()) {
-            // Accept single string shorthand e.g. "NONE"
-            String s = el.getAsString();
-            if (s != null && !s.isBlank()) {
-                ActionSchema.PressType pt = parsePressString(s);
-                return new ActionSchema.Mouse(pt, ActionSchema.PressType.NONE);
-            }
-            return ActionSchema.Mouse.none();
-        }
-        if (!el.isJsonObject()) return ActionSchema.Mouse.none();
-        JsonObject o = el.getAsJsonObject();
-        ActionSchema.PressType left = o.has("left") && !o.get("left").isJsonNull() ? parsePressString(o.get("left").getAsString()) : ActionSchema.PressType.NONE;
-        ActionSchema.PressType right = o.has("right") && !o.get("right").isJsonNull() ? parsePressString(o.get("right").getAsString()) : ActionSchema.PressType.NONE;
-        return new ActionSchema.Mouse(left, right);
-    }
-
-    private static ActionSchema.PressType parsePressString(String s) {
-        if (s == null) return ActionSchema.PressType.NONE;
-        try { return ActionSchema.PressType.valueOf(s.trim().toUpperCase()); } catch (Exception ignored) { return ActionSchema.PressType.NONE; }
-    }
-
     private static void addOptional(JsonObject o, String k, java.util.Optional<?> opt) {
         if (opt == null || opt.isEmpty()) { o.add(k, JsonNull.INSTANCE); return; }
         Object v = opt.get();
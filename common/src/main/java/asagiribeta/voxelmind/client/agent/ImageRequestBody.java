@@ -0,0 +1,97 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Request body made of a small JSON envelope with the frame's base64 data URI spliced in while the body is sent.
+ * The image is base64-encoded chunk by chunk straight into the outgoing stream, so the only full-size copy held
+ * in memory is the encoded frame itself (instead of base64 String + JSON tree + serialized String + UTF-8 bytes).
+ */
+final class ImageRequestBody {
+    private ImageRequestBody() {}
+
+    // Multiple of 3 so every chunk encodes without carry-over between writes.
+    private static final int CHUNK = 3 * 4096;
+
+    /**
+     * {@code head} is the serialized request up to the opening quote of the image URL string and {@code tail} the rest
+     * from its closing quote; the data URI needs no JSON escaping. Replayable, with an exact Content-Length.
+     */
+    static HttpRequest.BodyPublisher publisher(String head, String tail, EncodedFrame frame) {
+        byte[] prefix = (head + "data:" + frame.mimeType() + ";base64,").getBytes(StandardCharsets.UTF_8);
+        byte[] suffix = tail.getBytes(StandardCharsets.UTF_8);
+        byte[] image = frame.bytes();
+        long length = prefix.length + 4L * ((image.length + 2) / 3) + suffix.length;
+        return HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> new SequenceInputStream(
+                Collections.enumeration(List.of(new ByteArrayInputStream(prefix), new Base64InputStream(image), new ByteArrayInputStream(suffix))))), length);
+    }
+
+    /** Pulls base64 text of {@code src} on demand through {@link Base64.Encoder#wrap(OutputStream)}. */
+    private static final class Base64InputStream extends InputStream {
+        private final byte[] src;
+        private int srcPos = 0;
+        private final Sink sink = new Sink(CHUNK / 3 * 4 + 4);
+        private final OutputStream encoder = Base64.getEncoder().wrap(sink);
+        private int outPos = 0;
+        private boolean done = false;
+
+        Base64InputStream(byte[] src) { this.src = src; }
+
+        @Override
+        public int read() throws IOException {
+            while (outPos == sink.count) { if (!fill()) return -1; }
+            return sink.buf[outPos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            while (outPos == sink.count) { if (!fill()) return -1; }
+            int n = Math.min(len, sink.count - outPos);
+            System.arraycopy(sink.buf, outPos, b, off, n);
+            outPos += n;
+            return n;
+        }
+
+        private boolean fill() throws IOException {
+            if (done) return false;
+            sink.count = 0; outPos = 0;
+            int n = Math.min(CHUNK, src.length - srcPos);
+            if (n > 0) { encoder.write(src, srcPos, n); srcPos += n; }
+            // Closing the wrapper emits the final quantum with padding.
+            if (srcPos >= src.length) { encoder.close(); done = true; }
+            return true;
+        }
+    }
+
+    private static final class Sink extends OutputStream {
+        byte[] buf;
+        int count = 0;
+
+        Sink(int capacity) { buf = new byte[capacity]; }
+
+        @Override public void write(int b) { ensure(1); buf[count++] = (byte) b; }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        private void ensure(int extra) {
+            if (count + extra > buf.length) buf = java.util.Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+        }
+    }
+}
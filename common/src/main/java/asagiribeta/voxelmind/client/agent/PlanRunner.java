@@ -0,0 +1,85 @@
+package asagiribeta.voxelmind.client.agent;
+
+import net.minecraft.core.BlockPos;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Progress of the running action plan: which step is current, when it began, what it is waiting for (navigation goal,
+ * block to break) and how the previous plan ended. The controller evaluates the step conditions against the world and
+ * applies each step's actions; this class only keeps the bookkeeping. Client thread only.
+ */
+final class PlanRunner {
+    private List<ActionSchema.PlanStep> steps = List.of();
+    private int index = -1;
+    private long stepStartTick = 0;
+    private BlockPos goal = null, block = null;
+    private String outcome = null; // reported in prompts until one is actually sent
+    private long started = 0, completed = 0, aborted = 0, stepsRun = 0;
+
+    boolean isActive() { return index >= 0; }
+
+    void start(List<ActionSchema.PlanStep> plan) {
+        steps = plan;
+        index = -1;
+        if (plan.isEmpty()) return;
+        started++;
+        outcome = null;
+        index = 0;
+        stepStartTick = Long.MIN_VALUE; // first step is handed out by next()
+    }
+
+    /** The step waiting for its condition, or null before the first step has begun. */
+    ActionSchema.PlanStep current() { return isActive() && stepStartTick != Long.MIN_VALUE ? steps.get(index) : null; }
+
+    /** Begins the following step (the first one right after start) and returns it; null when the plan is finished. */
+    ActionSchema.PlanStep next(long now) {
+        if (!isActive()) return null;
+        if (stepStartTick != Long.MIN_VALUE) index++;
+        if (index >= steps.size()) {
+            completed++;
+            outcome = "completed " + steps.size() + "/" + steps.size() + " steps";
+            index = -1;
+            return null;
+        }
+        stepStartTick = now;
+        goal = null;
+        block = null;
+        stepsRun++;
+        return steps.get(index);
+    }
+
+    long elapsed(long now) { return now - stepStartTick; }
+
+    BlockPos goal() { return goal; }
+    void setGoal(BlockPos goal) { this.goal = goal; }
+    BlockPos block() { return block; }
+    void setBlock(BlockPos block) { this.block = block; }
+
+    /** Stops the plan; the reason is reported to the model in the next prompt. */
+    void abort(String reason) {
+        if (!isActive()) return;
+        aborted++;
+        ActionSchema.PlanStep step = current();
+        outcome = "aborted at step " + (index + 1) + "/" + steps.size()
+                + (step == null ? "" : " (" + step.until().name().toLowerCase(Locale.ROOT) + ")") + ": " + reason;
+        index = -1;
+    }
+
+    /** Stops without reporting (the plan was replaced or the mode left CONTROL). */
+    void clear() { index = -1; }
+
+    /** Prompt line describing the running plan or how the last one ended (until {@link #statusSent}); empty if there is nothing to report. */
+    String status() {
+        if (isActive()) return "Plan: running step " + (index + 1) + "/" + steps.size();
+        return outcome == null ? "" : "Plan: " + outcome;
+    }
+
+    /** The model has been sent {@code status}; the outcome it reported is not repeated (a newer one is kept). */
+    void statusSent(String status) {
+        if (outcome != null && status.equals("Plan: " + outcome)) outcome = null;
+    }
+
+    String stats() { return "plans=" + started + " ok=" + completed + " aborted=" + aborted + " steps=" + stepsRun; }
+}
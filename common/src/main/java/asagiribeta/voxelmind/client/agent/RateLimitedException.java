@@ -0,0 +1,16 @@
+package asagiribeta.voxelmind.client.agent;
+
+/**
+ * Completes a decision that was never sent because the endpoint's {@link RateLimiter} held it. Callers should neither
+ * report it as a failure nor count it as a latency sample; {@link #waitMillis()} says when a request may go.
+ */
+final class RateLimitedException extends RuntimeException {
+    private final long waitMillis;
+
+    RateLimitedException(long waitMillis) {
+        super("held by rate limiter for " + waitMillis + "ms", null, false, false);
+        this.waitMillis = waitMillis;
+    }
+
+    long waitMillis() { return waitMillis; }
+}
@@ -0,0 +1,161 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.config.Config;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Client-side limiter for one endpoint. Two token buckets (requests/min and tokens/min, each holding up to one minute's
+ * budget; 0 disables) gate sending, and the server's own signals block it outright: {@code Retry-After}, exhausted
+ * {@code x-ratelimit-remaining-*} with the matching {@code x-ratelimit-reset-*}, and a jittered exponential backoff
+ * for a 429 that carries neither. Token cost is unknown up front, so each request reserves the running average of
+ * reported {@code usage.total_tokens}; the difference is settled when the reply arrives, and a request that gets no
+ * reply (HTTP error, timeout, cancellation, a lost hedge) has its reservation refunded.
+ */
+final class RateLimiter {
+    private static final long BACKOFF_BASE_MS = 1_000, BACKOFF_MAX_MS = 60_000;
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private double requestLevel = 0, tokenLevel = 0;
+    private boolean primed = false; // buckets start full
+    private long lastRefillNanos = 0;
+    private double avgTokens = 1000;
+    private long blockedUntilNanos = 0;
+    private String blockReason = "";
+    private int consecutive429 = 0;
+    private long throttled429 = 0, denied = 0, refunded = 0;
+    private final Supplier<Config> config;
+
+    RateLimiter() { this(Config::get); }
+
+    RateLimiter(Supplier<Config> config) { this.config = config; }
+
+    /** Milliseconds until a request may be sent; 0 when one may go now. */
+    synchronized long waitMillis() {
+        long now = System.nanoTime();
+        if (now < blockedUntilNanos) return Math.max(1, (blockedUntilNanos - now) / 1_000_000);
+        refill(now);
+        Config cfg = config.get();
+        double reqWait = cfg.rateLimitRequestsPerMinute() > 0 && requestLevel < 1 ? (1 - requestLevel) * 60_000 / cfg.rateLimitRequestsPerMinute() : 0;
+        int tpm = cfg.rateLimitTokensPerMinute();
+        double tokensNeeded = Math.min(avgTokens, tpm);
+        double tokWait = tpm > 0 && tokenLevel < tokensNeeded ? (tokensNeeded - tokenLevel) * 60_000 / tpm : 0;
+        return (long) Math.ceil(Math.max(reqWait, tokWait));
+    }
+
+    /** Takes one request and the estimated tokens if available; returns the token reservation, or -1 if denied. */
+    synchronized long tryAcquire() {
+        if (waitMillis() > 0) { denied++; return -1; }
+        Config cfg = config.get();
+        if (cfg.rateLimitRequestsPerMinute() > 0) requestLevel -= 1;
+        long reserved = Math.round(avgTokens);
+        if (cfg.rateLimitTokensPerMinute() > 0) tokenLevel -= reserved;
+        return reserved;
+    }
+
+    /** Settles a reservation against a reply's reported usage; a reply without usage keeps the estimate as its cost. */
+    synchronized void onUsage(long reserved, long actualTokens) {
+        if (actualTokens <= 0) return;
+        avgTokens = avgTokens * 0.8 + actualTokens * 0.2;
+        if (reserved >= 0 && config.get().rateLimitTokensPerMinute() > 0) tokenLevel -= actualTokens - reserved;
+    }
+
+    /** Returns the tokens reserved for a request that produced no reply. The request itself stays counted. */
+    synchronized void refund(long reserved) {
+        int tpm = config.get().rateLimitTokensPerMinute();
+        if (reserved <= 0 || tpm <= 0) return;
+        tokenLevel = Math.min(tpm, tokenLevel + reserved);
+        refunded++;
+    }
+
+    synchronized void onResponse(int status, HttpHeaders headers) {
+        long now = System.nanoTime();
+        Optional<Duration> retryAfter = headers.firstValue("retry-after").flatMap(RateLimiter::parseRetryAfter);
+        retryAfter.ifPresent(d -> block(now, d.toMillis(), "retry-after"));
+        exhausted(headers, "requests").ifPresent(ms -> block(now, ms, "requests exhausted"));
+        exhausted(headers, "tokens").ifPresent(ms -> block(now, ms, "tokens exhausted"));
+        if (status == 429) {
+            throttled429++;
+            consecutive429++;
+            if (retryAfter.isEmpty()) {
+                long cap = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(16, consecutive429 - 1));
+                // Jitter between half and the full step so clients that were throttled together do not retry together
+                block(now, cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1), "429 backoff");
+            }
+        } else if (status / 100 == 2) {
+            consecutive429 = 0;
+        }
+    }
+
+    synchronized String stats() {
+        long wait = waitMillis();
+        Config cfg = config.get();
+        StringBuilder sb = new StringBuilder(wait > 0 ? "throttled " + wait + "ms" : "rl ok");
+        if (wait > 0 && System.nanoTime() < blockedUntilNanos) sb.append(" (").append(blockReason).append(')');
+        if (cfg.rateLimitRequestsPerMinute() > 0) sb.append(" req=").append((int) requestLevel).append('/').append(cfg.rateLimitRequestsPerMinute());
+        if (cfg.rateLimitTokensPerMinute() > 0) sb.append(" tok=").append((long) tokenLevel).append('/').append(cfg.rateLimitTokensPerMinute());
+        if (throttled429 > 0) sb.append(" 429s=").append(throttled429);
+        if (denied > 0) sb.append(" held=").append(denied);
+        if (refunded > 0) sb.append(" refunded=").append(refunded);
+        return sb.toString();
+    }
+
+    private void refill(long now) {
+        Config cfg = config.get();
+        int rpm = cfg.rateLimitRequestsPerMinute(), tpm = cfg.rateLimitTokensPerMinute();
+        if (!primed) {
+            requestLevel = rpm;
+            tokenLevel = tpm;
+            primed = true;
+        } else {
+            double minutes = (now - lastRefillNanos) / 60e9;
+            requestLevel = Math.min(rpm, requestLevel + minutes * rpm);
+            tokenLevel = Math.min(tpm, tokenLevel + minutes * tpm);
+        }
+        lastRefillNanos = now;
+    }
+
+    private void block(long now, long millis, String reason) {
+        if (millis <= 0) return;
+        long until = now + millis * 1_000_000;
+        if (until <= blockedUntilNanos) return;
+        blockedUntilNanos = until;
+        blockReason = reason;
+    }
+
+    /** Reset delay when {@code x-ratelimit-remaining-<kind>} is 0. */
+    private static Optional<Long> exhausted(HttpHeaders headers, String kind) {
+        Optional<String> remaining = headers.firstValue("x-ratelimit-remaining-" + kind);
+        if (remaining.isEmpty() || !remaining.get().trim().equals("0")) return Optional.empty();
+        return headers.firstValue("x-ratelimit-reset-" + kind).map(RateLimiter::parseDurationMillis).or(() -> Optional.of(BACKOFF_BASE_MS));
+    }
+
+    /** Delta-seconds or an HTTP-date. */
+    private static Optional<Duration> parseRetryAfter(String v) {
+        String s = v.trim();
+        try { return Optional.of(Duration.ofMillis(Math.round(Double.parseDouble(s) * 1000))); } catch (NumberFormatException ignored) {}
+        try { return Optional.of(Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(s, DateTimeFormatter.RFC_1123_DATE_TIME))); } catch (Exception ignored) {}
+        return Optional.empty();
+    }
+
+    /** OpenAI-style reset values such as {@code 20ms}, {@code 1.5s}, {@code 6m0s}; a bare number is seconds. */
+    private static long parseDurationMillis(String v) {
+        String s = v.trim();
+        try { return Math.round(Double.parseDouble(s) * 1000); } catch (NumberFormatException ignored) {}
+        Matcher m = DURATION_PART.matcher(s);
+        double ms = 0;
+        while (m.find()) {
+            double n = Double.parseDouble(m.group(1));
+            ms += switch (m.group(2)) { case "h" -> n * 3_600_000; case "m" -> n * 60_000; case "s" -> n * 1000; default -> n; };
+        }
+        return Math.round(ms);
+    }
+}
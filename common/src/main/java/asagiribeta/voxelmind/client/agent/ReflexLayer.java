@@ -0,0 +1,144 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.client.input.InputApplier;
+import asagiribeta.voxelmind.config.Config;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.world.damagesource.DamageSource;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.monster.Enemy;
+
+import java.util.Optional;
+
+/**
+ * Rule-driven reflexes evaluated every client tick, ahead of the model. Each rule is a cheap predicate over the local
+ * player's own state (no world scans), so {@link #evaluate} reads fields only and allocates nothing; the inputs it steers
+ * with are preallocated too, apart from the view facing a threat, built once per threat. The controller reacts to the
+ * onset of a reflex (abort plan/macro, cancel in-flight requests, queue a REFLEX decision) and lets it steer while
+ * {@link #steering} holds. Client thread only.
+ */
+final class ReflexLayer {
+    /** In priority order, highest first. */
+    enum Reflex {
+        LAVA("standing in lava, jumping out", -1),
+        FALLING("falling", -1),
+        HOSTILE_MELEE("hostile mob in melee range, backing off", 10),
+        LOW_HEALTH("health low, stopped attacking", 0);
+
+        final String description;
+        /** Ticks the reflex steers after onset: -1 while its condition holds, 0 only at onset. */
+        final int steerTicks;
+
+        Reflex(String description, int steerTicks) { this.description = description; this.steerTicks = steerTicks; }
+    }
+
+    private static final Reflex[] REFLEXES = Reflex.values();
+    // A reflex that fired re-raises a decision at most this often while its condition flickers
+    private static final int RETRIGGER_TICKS = 40;
+    private static final double MELEE_RANGE_SQ = 3.5 * 3.5;
+    private static final ActionSchema.Movement ESCAPE_LAVA = new ActionSchema.Movement(true, false, false, false, true, false, false);
+    private static final ActionSchema.Movement BACK_OFF = new ActionSchema.Movement(false, true, false, false, false, false, false);
+    private static final ActionSchema.Movement STOP = ActionSchema.Movement.none();
+    private static final ActionSchema.Mouse RELEASE = new ActionSchema.Mouse(ActionSchema.PressType.RELEASE, ActionSchema.PressType.RELEASE);
+
+    private final long[] lastOnsetTick = new long[REFLEXES.length];
+    private final long[] fired = new long[REFLEXES.length];
+    private Reflex active = null;
+    private long activeSinceTick = 0;
+    private Entity threat = null;      // mob that triggered HOSTILE_MELEE
+    private ActionSchema.View faceThreat = null; // absolute yaw towards threat, built at the first steer after it changes
+    private Reflex reported = null;    // reported in prompts until one is actually sent
+
+    ReflexLayer() { java.util.Arrays.fill(lastOnsetTick, Long.MIN_VALUE / 2); }
+
+    /** Highest-priority reflex whose condition holds, or null. Allocation-free. */
+    Reflex evaluate(Minecraft mc, LocalPlayer p, Config cfg) {
+        if (p.isDeadOrDying()) return null;
+        if (p.isInLava()) return Reflex.LAVA;
+        if (!p.onGround() && !p.isInWater() && p.fallDistance > cfg.reflexFallDistance()) return Reflex.FALLING;
+        Entity t = meleeThreat(mc, p);
+        if (t != null) {
+            if (t != threat) { threat = t; faceThreat = null; }
+            return Reflex.HOSTILE_MELEE;
+        }
+        if (p.getHealth() <= cfg.reflexLowHealth()) return Reflex.LOW_HEALTH;
+        return null;
+    }
+
+    // A hostile that hit us in the last two seconds (the client keeps the last damage source that long) or is under the
+    // crosshair, and is within melee range
+    private static Entity meleeThreat(Minecraft mc, LocalPlayer p) {
+        DamageSource src = p.getLastDamageSource();
+        Entity attacker = src == null ? null : src.getEntity();
+        if (attacker instanceof Enemy && attacker.isAlive() && attacker.distanceToSqr(p) <= MELEE_RANGE_SQ) return attacker;
+        Entity aimed = mc.crosshairPickEntity;
+        if (aimed instanceof Enemy && aimed.isAlive() && aimed.distanceToSqr(p) <= MELEE_RANGE_SQ) return aimed;
+        return null;
+    }
+
+    /**
+     * Records the result of this tick's {@link #evaluate}. True on the onset of a reflex that should pre-empt queued
+     * actions and raise a decision (a new reflex, or the same one again after {@link #RETRIGGER_TICKS}).
+     */
+    boolean update(Reflex r, long now) {
+        Reflex prev = active;
+        active = r;
+        if (r == null) { threat = null; faceThreat = null; return false; }
+        if (r == prev) return false;
+        activeSinceTick = now;
+        int i = r.ordinal();
+        if (now - lastOnsetTick[i] < RETRIGGER_TICKS) return false;
+        lastOnsetTick[i] = now;
+        fired[i]++;
+        reported = r;
+        return true;
+    }
+
+    Reflex active() { return active; }
+
+    boolean steering(long now) {
+        return active != null && (active.steerTicks < 0 || now - activeSinceTick <= active.steerTicks);
+    }
+
+    /** Overrides this tick's movement, clicks and (backing off) yaw for the active reflex. Allocates only the view for a new threat. */
+    void steer(Minecraft mc, InputApplier input) {
+        LocalPlayer p = mc.player;
+        input.applyMouse(mc, RELEASE);
+        switch (active) {
+            case LAVA -> input.applyMovement(mc, ESCAPE_LAVA);
+            case FALLING, LOW_HEALTH -> input.applyMovement(mc, STOP);
+            case HOSTILE_MELEE -> {
+                // Face the mob and walk backwards away from it
+                if (threat != null) {
+                    if (faceThreat == null) {
+                        double dx = threat.getX() - p.getX(), dz = threat.getZ() - p.getZ();
+                        faceThreat = new ActionSchema.View(Optional.of((float) (Math.toDegrees(Math.atan2(dz, dx)) - 90.0)), Optional.empty(), Optional.empty(), Optional.empty());
+                    }
+                    input.applyView(mc, faceThreat);
+                }
+                input.applyMovement(mc, BACK_OFF);
+            }
+        }
+    }
+
+    void stopSteering(Minecraft mc, InputApplier input) { input.applyMovement(mc, STOP); }
+
+    void reset() { active = null; threat = null; faceThreat = null; reported = null; }
+
+    /** Prompt line for the last reflex that fired, until {@link #statusSent}; empty if none. */
+    String status() {
+        if (reported == null) return "";
+        return "Reflex: " + reported.description + (active == reported ? " (still ongoing)" : " (over)");
+    }
+
+    /** The model has been sent {@code status}; the reflex it reported is not repeated (a newer one is kept). */
+    void statusSent(String status) {
+        if (reported != null && status.startsWith("Reflex: " + reported.description + " (")) reported = null;
+    }
+
+    String stats() {
+        StringBuilder sb = new StringBuilder("reflexes");
+        for (Reflex r : REFLEXES) sb.append(' ').append(r.name().toLowerCase(java.util.Locale.ROOT)).append('=').append(fired[r.ordinal()]);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,188 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+import asagiribeta.voxelmind.config.Config;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads decisions over several OpenAI-compatible endpoints ({@code agent_endpoints}). Each request goes to a healthy
+ * endpoint picked at random in proportion to weight / (latency x error penalty), so faster and more reliable backends
+ * get more traffic; one pick in ten goes by weight alone so slower or recovering endpoints keep being measured.
+ * Consecutive failures (5xx, transport errors, timeouts) open an endpoint's circuit; open endpoints are probed with HEAD
+ * in the background and rejoin after a successful probe, on probation: one more failure reopens the circuit with a
+ * doubled cooldown.
+ */
+public final class RoutingAgentClient implements AgentClient {
+    private static final Logger LOGGER = LogManager.getLogger("VoxelMind-AI");
+    private static final int TRIP_AFTER_FAILURES = 3;
+    private static final double EXPLORE_SHARE = 0.1;
+    private static final long BASE_COOLDOWN_NANOS = 10_000_000_000L, MAX_COOLDOWN_NANOS = 300_000_000_000L;
+
+    private final List<Route> routes = new ArrayList<>();
+
+    public RoutingAgentClient(List<Config.Endpoint> endpoints, Config cfg, LongSupplier requestTimeoutMillis) {
+        this(endpoints, cfg, requestTimeoutMillis, Config::get);
+    }
+
+    RoutingAgentClient(List<Config.Endpoint> endpoints, Config cfg, LongSupplier requestTimeoutMillis, Supplier<Config> config) {
+        for (Config.Endpoint e : endpoints) {
+            String model = e.model().isEmpty() ? cfg.model() : e.model();
+            String key = e.apiKey().isEmpty() ? cfg.apiKey() : e.apiKey();
+            Health health = new Health(e.name(), e.weight(), () -> config.get().debug());
+            routes.add(new Route(new HttpAgentClient(e.url(), model, key, requestTimeoutMillis, health, config), health));
+        }
+    }
+
+    private record Route(HttpAgentClient client, Health health) {}
+
+    @Override
+    public ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, Optional<String> userGoal) {
+        return decide(screenshot, context, userGoal, null);
+    }
+
+    @Override
+    public ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, Optional<String> userGoal, Consumer<ActionSchema.Actions> onPartial) {
+        Route r = pick();
+        return r == null ? ActionSchema.Actions.none() : r.client().decide(screenshot, context, userGoal, onPartial);
+    }
+
+    @Override
+    public CompletableFuture<ActionSchema.Actions> decideAsync(EncodedFrame screenshot, GameContext context, Optional<String> userGoal,
+                                                               Consumer<ActionSchema.Actions> onPartial, Executor executor) {
+        Route r = pick();
+        if (r == null) return CompletableFuture.completedFuture(ActionSchema.Actions.none());
+        return r.client().decideAsync(screenshot, context, userGoal, onPartial, executor);
+    }
+
+    @Override
+    public void warmUp() { for (Route r : routes) if (r.health().closed()) r.client().warmUp(); }
+
+    @Override
+    public void maintainConnection() { maintainConnection(System.nanoTime()); }
+
+    /** {@code now} is a {@link System#nanoTime} reading; tests pass a later one to get past the probe cooldown. */
+    void maintainConnection(long now) {
+        for (Route r : routes) {
+            if (r.health().closed()) { r.client().maintainConnection(); continue; }
+            if (r.health().probeDue(now)) r.client().probe(r.health()::probeResult);
+        }
+    }
+
+    @Override
+    public void close() { for (Route r : routes) r.client().close(); }
+
+    @Override
+    public String connectionStats() {
+        return routes.stream().map(r -> r.health().stats() + " " + r.client().rateLimitStats()).collect(Collectors.joining(" | "));
+    }
+
+    /** Shortest wait among endpoints with a closed circuit. */
+    @Override
+    public long throttledForMillis() {
+        long min = Long.MAX_VALUE;
+        for (Route r : routes) if (r.health().closed()) min = Math.min(min, r.client().throttledForMillis());
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    /** Weighted random among closed, unthrottled circuits; if every circuit is open, the one that opened first (so a full outage still retries). */
+    private Route pick() {
+        if (routes.isEmpty()) return null;
+        boolean explore = ThreadLocalRandom.current().nextDouble() < EXPLORE_SHARE;
+        double total = 0;
+        double[] scores = new double[routes.size()];
+        for (int i = 0; i < routes.size(); i++) {
+            Health h = routes.get(i).health();
+            scores[i] = !h.closed() || routes.get(i).client().throttledForMillis() > 0 ? 0 : explore ? h.weight : h.score();
+            total += scores[i];
+        }
+        if (total > 0) {
+            double x = ThreadLocalRandom.current().nextDouble(total);
+            for (int i = 0; i < scores.length; i++) { x -= scores[i]; if (x < 0) return routes.get(i); }
+            return routes.get(scores.length - 1);
+        }
+        Route oldest = routes.get(0);
+        for (Route r : routes) if (r.health().openedAtNanos() < oldest.health().openedAtNanos()) oldest = r;
+        return oldest;
+    }
+
+    /** Per-endpoint circuit breaker and latency/error statistics. */
+    static final class Health implements HttpAgentClient.ExchangeListener {
+        private final String name;
+        private final double weight;
+        private final BooleanSupplier debug;
+        private double latencyEwmaMs = -1, errorRate = 0;
+        private long ok = 0, failed = 0;
+        private int consecutiveFailures = 0, trips = 0;
+        private boolean open = false;
+        private long openedAtNanos = Long.MAX_VALUE, nextProbeNanos = 0;
+
+        Health(String name, double weight, BooleanSupplier debug) { this.name = name; this.weight = weight; this.debug = debug; }
+
+        @Override
+        public synchronized void onExchange(boolean success, boolean timedOut, long latencyMs) {
+            errorRate = errorRate * 0.9 + (success ? 0 : 0.1);
+            if (success) {
+                ok++;
+                consecutiveFailures = 0;
+                trips = 0;
+                latencyEwmaMs = latencyEwmaMs < 0 ? latencyMs : latencyEwmaMs * 0.8 + latencyMs * 0.2;
+                return;
+            }
+            failed++;
+            if (open || ++consecutiveFailures < TRIP_AFTER_FAILURES) return;
+            open = true;
+            trips++;
+            long now = System.nanoTime();
+            openedAtNanos = now;
+            nextProbeNanos = now + cooldownNanos();
+            if (debug.getAsBoolean()) LOGGER.info("[VoxelMind][AI route] {} circuit open after {} failures{}", name, consecutiveFailures, timedOut ? " (timeout)" : "");
+        }
+
+        synchronized void probeResult(boolean reachable) {
+            if (!open) return;
+            if (!reachable) { nextProbeNanos = System.nanoTime() + cooldownNanos(); return; }
+            // Probation: the next failure trips the circuit again (with a longer cooldown, since trips is not reset yet)
+            open = false;
+            openedAtNanos = Long.MAX_VALUE;
+            consecutiveFailures = TRIP_AFTER_FAILURES - 1;
+            errorRate /= 2;
+            if (debug.getAsBoolean()) LOGGER.info("[VoxelMind][AI route] {} probe succeeded, circuit closed", name);
+        }
+
+        synchronized boolean probeDue(long now) {
+            if (!open || now < nextProbeNanos) return false;
+            nextProbeNanos = now + cooldownNanos();
+            return true;
+        }
+
+        synchronized boolean closed() { return !open; }
+        synchronized long openedAtNanos() { return openedAtNanos; }
+
+        /** Unmeasured endpoints are scored as if they answered in one second so they still get traffic. */
+        synchronized double score() {
+            double latency = latencyEwmaMs <= 0 ? 1000 : latencyEwmaMs;
+            return weight / latency / (1 + 4 * errorRate);
+        }
+
+        private long cooldownNanos() { return Math.min(MAX_COOLDOWN_NANOS, BASE_COOLDOWN_NANOS << Math.min(5, Math.max(0, trips - 1))); }
+
+        synchronized String stats() {
+            String state = open ? "OPEN(probe in " + Math.max(0, (nextProbeNanos - System.nanoTime()) / 1_000_000_000L) + "s)" : "ok";
+            return name + " " + state + " w=" + weight + " lat=" + (latencyEwmaMs < 0 ? "n/a" : Math.round(latencyEwmaMs) + "ms")
+                    + " err=" + Math.round(errorRate * 100) + "% " + ok + "/" + failed;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package asagiribeta.voxelmind.client.agent;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Incremental scanner for the assistant's actions object as it streams in. Tracks string/escape state and nesting
+ * depth over the accumulated text and reports each top-level member, as raw JSON text, as soon as its value is complete
+ * (objects and arrays when they close, primitives at the following comma or closing brace). Leading text before the
+ * first '{' (e.g. a markdown fence) is skipped. Not thread-safe; feed deltas in arrival order.
+ */
+final class StreamingActionParser {
+    private final StringBuilder text = new StringBuilder();
+    private final BiConsumer<String, String> onMember;
+    private int pos = 0;
+    private int depth = 0;
+    private boolean inString = false, escape = false, done = false;
+    private int keyStart = -1, valueStart = -1;
+    private String key = null;
+
+    StreamingActionParser(BiConsumer<String, String> onMember) { this.onMember = onMember; }
+
+    /** Full text received so far. */
+    String content() { return text.toString(); }
+
+    void feed(String delta) {
+        if (delta == null || delta.isEmpty()) return;
+        text.append(delta);
+        for (; pos < text.length() && !done; pos++) {
+            char c = text.charAt(pos);
+            if (inString) {
+                if (escape) escape = false;
+                else if (c == '\\') escape = true;
+                else if (c == '"') {
+                    inString = false;
+                    if (depth == 1 && key == null && keyStart >= 0) { key = text.substring(keyStart, pos); keyStart = -1; }
+                }
+                continue;
+            }
+            if (depth == 0) { if (c == '{') depth = 1; continue; }
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    if (depth == 1 && key == null) keyStart = pos + 1;
+                }
+                case ':' -> { if (depth == 1 && key != null && valueStart < 0) valueStart = pos + 1; }
+                case '{', '[' -> depth++;
+                case '}', ']' -> {
+                    depth--;
+                    if (depth == 1 && valueStart >= 0) emit(pos + 1);
+                    else if (depth == 0) { if (valueStart >= 0) emit(pos); done = true; }
+                }
+                case ',' -> { if (depth == 1) { if (valueStart >= 0) emit(pos); key = null; } }
+                default -> {}
+            }
+        }
+    }
+
+    private void emit(int end) {
+        String raw = text.substring(valueStart, end).trim();
+        String k = key;
+        // Object/array members are emitted at their closing bracket; the following comma only resets the key.
+        valueStart = -1;
+        if (raw.isEmpty()) return;
+        onMember.accept(k, raw);
+    }
+}
@@ -1,5 +1,7 @@
 package asagiribeta.voxelmind.client.agent;
 
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+
 import java.time.LocalTime;
 import java.util.Optional;
 
@@ -8,7 +10,7 @@ import java.util.Optional;
  */
 public final class StubAgentClient implements AgentClient {
     @Override
-    public ActionSchema.Actions decide(byte[] screenshotPngBytes, GameContext context, Optional<String> userGoal) {
+    public ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, Optional<String> userGoal) {
         String info = "StubAgent tick at " + LocalTime.now().withNano(0) +
                 " pos=(" + (int)context.x() + "," + (int)context.y() + "," + (int)context.z() + ")" +
                 userGoal.map(g -> " goal=\"" + g + "\"").orElse("");
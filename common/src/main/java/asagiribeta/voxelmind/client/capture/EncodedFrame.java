@@ -0,0 +1,8 @@
+package asagiribeta.voxelmind.client.capture;
+
+/**
+ * An encoded agent frame ready for upload, with the MIME type of its encoder and the {@link FrameHash} of its pixels.
+ */
+public record EncodedFrame(byte[] bytes, String mimeType, int width, int height, long perceptualHash) {
+    public int size() { return bytes == null ? 0 : bytes.length; }
+}
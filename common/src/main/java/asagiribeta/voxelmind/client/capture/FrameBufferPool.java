@@ -0,0 +1,59 @@
+package asagiribeta.voxelmind.client.capture;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Small pool of direct staging buffers and ARGB work arrays used by the capture pipeline, so frames move
+ * from the render thread to the encoder thread without allocating per capture. Entries are only replaced
+ * when the framebuffer grows; hit/miss counts show whether that holds in practice.
+ */
+public final class FrameBufferPool {
+    private final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+    private final ArrayDeque<int[]> freeArrays = new ArrayDeque<>();
+    private final int maxPooled;
+    private long hits = 0, misses = 0;
+
+    public FrameBufferPool(int maxPooled) { this.maxPooled = Math.max(1, maxPooled); }
+
+    /** Returns a cleared direct buffer with at least {@code bytes} capacity and limit set to {@code bytes}. */
+    public synchronized ByteBuffer acquire(int bytes) {
+        for (Iterator<ByteBuffer> it = freeBuffers.iterator(); it.hasNext();) {
+            ByteBuffer b = it.next();
+            if (b.capacity() >= bytes) { it.remove(); hits++; b.clear().limit(bytes); return b; }
+        }
+        // Undersized buffers are stale (framebuffer grew); drop one so the pool does not pin old memory.
+        if (!freeBuffers.isEmpty()) freeBuffers.pollFirst();
+        misses++;
+        ByteBuffer b = BufferUtils.createByteBuffer(bytes);
+        b.limit(bytes);
+        return b;
+    }
+
+    public synchronized void release(ByteBuffer b) {
+        if (b == null || freeBuffers.size() >= maxPooled) return;
+        freeBuffers.addLast(b);
+    }
+
+    /** Returns an int array of at least {@code len} elements; contents are undefined. */
+    public synchronized int[] acquireInts(int len) {
+        for (Iterator<int[]> it = freeArrays.iterator(); it.hasNext();) {
+            int[] a = it.next();
+            if (a.length >= len) { it.remove(); hits++; return a; }
+        }
+        if (!freeArrays.isEmpty()) freeArrays.pollFirst();
+        misses++;
+        return new int[len];
+    }
+
+    public synchronized void releaseInts(int[] a) {
+        if (a == null || freeArrays.size() >= maxPooled) return;
+        freeArrays.addLast(a);
+    }
+
+    public synchronized long hits() { return hits; }
+    public synchronized long misses() { return misses; }
+}
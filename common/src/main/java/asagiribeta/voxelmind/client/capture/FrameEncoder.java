@@ -0,0 +1,32 @@
+package asagiribeta.voxelmind.client.capture;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Encodes opaque ARGB frames for upload. Implementations are used from the single encoder thread
+ * and may keep per-instance scratch state.
+ */
+public interface FrameEncoder {
+    /** MIME type for the data URI, e.g. {@code image/png}. */
+    String mimeType();
+
+    /** Short name used in config and diagnostics. */
+    String name();
+
+    /** Encodes the first {@code w*h} pixels of {@code argb} (row-major); alpha is ignored. */
+    byte[] encode(int w, int h, int[] argb) throws IOException;
+
+    /**
+     * Resolves the encoder for a config format. {@code jpeg}/{@code jpg} is lossy with quality 1-100;
+     * anything else falls back to lossless PNG with the given deflate level (0-9) and row filter.
+     * WebP has no encoder in the JDK's ImageIO, so it is not offered.
+     */
+    static FrameEncoder forFormat(String format, int quality, int pngLevel, String pngFilter) {
+        String f = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        return switch (f) {
+            case "jpeg", "jpg" -> new JpegFrameEncoder(quality);
+            default -> new PngFrameEncoder(pngLevel, PngFrameEncoder.Filter.parse(pngFilter));
+        };
+    }
+}
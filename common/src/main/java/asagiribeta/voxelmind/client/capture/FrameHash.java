@@ -0,0 +1,42 @@
+package asagiribeta.voxelmind.client.capture;
+
+/**
+ * 64-bit perceptual difference hash (dHash) of an ARGB frame: the frame is box-averaged down to a 9x8 luma grid
+ * and each bit records whether a cell is brighter than its right neighbour. Small changes (particles, sky drift,
+ * compression noise) flip few bits, so the Hamming distance between two hashes measures how much the scene changed.
+ */
+public final class FrameHash {
+    private FrameHash() {}
+
+    private static final int GRID_W = 9, GRID_H = 8;
+
+    public static long dHash(int[] argb, int w, int h) {
+        if (w <= 0 || h <= 0) return 0L;
+        long[] sum = new long[GRID_W * GRID_H];
+        int[] count = new int[GRID_W * GRID_H];
+        // Sample every other pixel in each direction; plenty for a 72-cell grid and halves the cost.
+        for (int y = 0; y < h; y += 2) {
+            int gy = y * GRID_H / h, row = y * w;
+            for (int x = 0; x < w; x += 2) {
+                int c = argb[row + x];
+                // Integer Rec.601 luma
+                int luma = (((c >>> 16) & 0xFF) * 299 + ((c >>> 8) & 0xFF) * 587 + (c & 0xFF) * 114) / 1000;
+                int cell = gy * GRID_W + x * GRID_W / w;
+                sum[cell] += luma; count[cell]++;
+            }
+        }
+        long hash = 0L;
+        for (int gy = 0; gy < GRID_H; gy++) {
+            for (int gx = 0; gx < GRID_W - 1; gx++) {
+                int a = gy * GRID_W + gx;
+                long left = count[a] == 0 ? 0 : sum[a] / count[a];
+                long right = count[a + 1] == 0 ? 0 : sum[a + 1] / count[a + 1];
+                hash = (hash << 1) | (left > right ? 1L : 0L);
+            }
+        }
+        return hash;
+    }
+
+    /** Number of differing bits (0 = perceptually identical, 64 = unrelated). */
+    public static int distance(long a, long b) { return Long.bitCount(a ^ b); }
+}
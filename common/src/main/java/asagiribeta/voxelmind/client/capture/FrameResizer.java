@@ -0,0 +1,73 @@
+package asagiribeta.voxelmind.client.capture;
+
+import java.util.Locale;
+
+/**
+ * Downscales ARGB frames on primitive arrays before encoding. Vision endpoints resample large images anyway,
+ * so shrinking here cuts payload, encode and upload time without losing useful detail.
+ */
+public final class FrameResizer {
+    private FrameResizer() {}
+
+    public enum Filter {
+        /** Single sample per output pixel; fastest, aliases on fine detail. */
+        NEAREST,
+        /** Area average of every source pixel covered by the output pixel. */
+        BOX;
+
+        public static Filter parse(String s) {
+            if (s == null) return BOX;
+            try { return valueOf(s.trim().toUpperCase(Locale.ROOT)); } catch (Exception ignored) { return BOX; }
+        }
+    }
+
+    /** Width/height that fit {@code maxEdge} on the long side, preserving aspect; unchanged when already small enough or maxEdge <= 0. */
+    public static int[] fitLongEdge(int w, int h, int maxEdge) {
+        int longEdge = Math.max(w, h);
+        if (maxEdge <= 0 || longEdge <= maxEdge) return new int[] { w, h };
+        double scale = (double) maxEdge / longEdge;
+        return new int[] { Math.max(1, (int) Math.round(w * scale)), Math.max(1, (int) Math.round(h * scale)) };
+    }
+
+    /** Resizes {@code src} (sw x sh, row-major ARGB) into {@code dst} (dw x dh). Only downscaling is meaningful for BOX. */
+    public static void resize(int[] src, int sw, int sh, int[] dst, int dw, int dh, Filter filter) {
+        if (filter == Filter.NEAREST) { nearest(src, sw, sh, dst, dw, dh); return; }
+        box(src, sw, sh, dst, dw, dh);
+    }
+
+    private static void nearest(int[] src, int sw, int sh, int[] dst, int dw, int dh) {
+        int[] xs = new int[dw];
+        for (int x = 0; x < dw; x++) xs[x] = Math.min(sw - 1, (int) (((long) x * sw + sw / 2) / dw));
+        for (int y = 0; y < dh; y++) {
+            int sy = Math.min(sh - 1, (int) (((long) y * sh + sh / 2) / dh));
+            int srcRow = sy * sw, dstRow = y * dw;
+            for (int x = 0; x < dw; x++) dst[dstRow + x] = src[srcRow + xs[x]];
+        }
+    }
+
+    private static void box(int[] src, int sw, int sh, int[] dst, int dw, int dh) {
+        int[] x0 = new int[dw], x1 = new int[dw];
+        for (int x = 0; x < dw; x++) {
+            x0[x] = (int) ((long) x * sw / dw);
+            x1[x] = Math.max(x0[x] + 1, (int) ((long) (x + 1) * sw / dw));
+        }
+        for (int y = 0; y < dh; y++) {
+            int y0 = (int) ((long) y * sh / dh);
+            int y1 = Math.max(y0 + 1, (int) ((long) (y + 1) * sh / dh));
+            int dstRow = y * dw;
+            for (int x = 0; x < dw; x++) {
+                int a = 0, r = 0, g = 0, b = 0;
+                int xa = x0[x], xb = x1[x];
+                for (int sy = y0; sy < y1; sy++) {
+                    int row = sy * sw;
+                    for (int sx = xa; sx < xb; sx++) {
+                        int c = src[row + sx];
+                        a += c >>> 24; r += (c >>> 16) & 0xFF; g += (c >>> 8) & 0xFF; b += c & 0xFF;
+                    }
+                }
+                int n = (y1 - y0) * (xb - xa), half = n >> 1;
+                dst[dstRow + x] = ((a + half) / n) << 24 | ((r + half) / n) << 16 | ((g + half) / n) << 8 | ((b + half) / n);
+            }
+        }
+    }
+}
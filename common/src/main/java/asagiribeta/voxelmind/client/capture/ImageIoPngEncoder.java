@@ -0,0 +1,22 @@
+package asagiribeta.voxelmind.client.capture;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Single-threaded PNG through ImageIO (default deflate level, adaptive filters).
+ * Kept as the baseline for {@code /vm ssbench}; agent frames use {@link PngFrameEncoder}.
+ */
+public final class ImageIoPngEncoder implements FrameEncoder {
+    @Override public String mimeType() { return "image/png"; }
+    @Override public String name() { return "png-imageio"; }
+
+    @Override
+    public byte[] encode(int w, int h, int[] argb) throws IOException {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            ImageIO.write(JpegFrameEncoder.wrapRgb(w, h, argb), "png", baos);
+            return baos.toByteArray();
+        }
+    }
+}
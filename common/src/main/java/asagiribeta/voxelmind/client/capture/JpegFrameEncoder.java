@@ -0,0 +1,52 @@
+package asagiribeta.voxelmind.client.capture;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Lossy JPEG through the JDK's ImageIO writer. Game scenes compress several times smaller than PNG at quality ~80.
+ */
+public final class JpegFrameEncoder implements FrameEncoder {
+    private final float quality;
+
+    public JpegFrameEncoder(int quality) { this.quality = Math.max(1, Math.min(100, quality)) / 100f; }
+
+    @Override public String mimeType() { return "image/jpeg"; }
+    @Override public String name() { return "jpeg"; }
+
+    @Override
+    public byte[] encode(int w, int h, int[] argb) throws IOException {
+        Iterator<ImageWriter> it = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!it.hasNext()) throw new IOException("No JPEG writer");
+        ImageWriter writer = it.next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(1024, w * h / 8));
+        try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(baos)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(wrapRgb(w, h, argb), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+    /** Zero-copy RGB view over an ARGB int array (alpha bits are masked off, which JPEG requires). */
+    static BufferedImage wrapRgb(int w, int h, int[] argb) {
+        DirectColorModel cm = new DirectColorModel(24, 0xFF0000, 0x00FF00, 0x0000FF);
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(argb, w * h), w, h, w, cm.getMasks(), null);
+        return new BufferedImage(cm, raster, false, null);
+    }
+}
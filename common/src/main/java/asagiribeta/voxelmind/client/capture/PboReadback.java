@@ -0,0 +1,126 @@
+package asagiribeta.voxelmind.client.capture;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL21;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous framebuffer readback through a ring of pixel-buffer objects.
+ * {@link #issue} queues glReadPixels into a PBO and returns immediately; {@link #poll} (called once per tick)
+ * maps slots whose fence has signalled, so the CPU never waits on the GPU pipeline. Costs one or two frames of latency.
+ * All methods must be called on the render thread.
+ */
+public final class PboReadback {
+    private static final int RING = 3;
+    // Map even if the fence has not signalled after this many polls, so a lost fence cannot wedge a slot.
+    private static final int MAX_POLLS = 4;
+
+    private final int[] pbo = new int[RING];
+    private final long[] capacity = new long[RING];
+    private final long[] fence = new long[RING];
+    private final int[] width = new int[RING];
+    private final int[] height = new int[RING];
+    private final int[] polls = new int[RING];
+    @SuppressWarnings("unchecked")
+    private final Consumer<ByteBuffer>[] callbacks = new Consumer[RING];
+    private int nextSlot = 0;
+    private Boolean supported = null;
+
+    /** True when the current context exposes PBOs, buffer mapping and fence sync (GL 3.2 or the ARB equivalents). */
+    public boolean isSupported() {
+        if (supported == null) {
+            try {
+                var caps = GL.getCapabilities();
+                supported = caps.OpenGL32 || (caps.GL_ARB_pixel_buffer_object && caps.GL_ARB_map_buffer_range && caps.GL_ARB_sync);
+            } catch (Throwable t) { supported = false; }
+        }
+        return supported;
+    }
+
+    public void markUnsupported() { supported = false; }
+
+    /**
+     * Starts an async RGBA readback of the bound read framebuffer. {@code onMapped} later receives the mapped
+     * bottom-up pixels (valid only during the call) or null if the read failed. Returns false when the ring is
+     * full or PBOs are unavailable; the caller should then use a synchronous read.
+     */
+    public boolean issue(int w, int h, Consumer<ByteBuffer> onMapped) {
+        if (!isSupported()) return false;
+        int slot = nextSlot;
+        if (callbacks[slot] != null) return false;
+        long bytes = (long) w * h * 4;
+        int prevBinding = GL11.glGetInteger(GL21.GL_PIXEL_PACK_BUFFER_BINDING);
+        try {
+            if (pbo[slot] == 0) pbo[slot] = GL15.glGenBuffers();
+            GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, pbo[slot]);
+            if (capacity[slot] != bytes) { GL15.glBufferData(GL21.GL_PIXEL_PACK_BUFFER, bytes, GL15.GL_STREAM_READ); capacity[slot] = bytes; }
+            GL11.glReadPixels(0, 0, w, h, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, 0L);
+            fence[slot] = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        } finally {
+            GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, prevBinding);
+        }
+        width[slot] = w; height[slot] = h; polls[slot] = 0; callbacks[slot] = onMapped;
+        nextSlot = (slot + 1) % RING;
+        return true;
+    }
+
+    /** Delivers every completed slot in issue order; stops at the first one still in flight. */
+    public void poll() {
+        for (int i = 0; i < RING; i++) {
+            int slot = (nextSlot + i) % RING;
+            if (callbacks[slot] == null) continue;
+            if (!ready(slot)) return;
+            deliver(slot);
+        }
+    }
+
+    public int inFlight() {
+        int n = 0;
+        for (Consumer<ByteBuffer> c : callbacks) if (c != null) n++;
+        return n;
+    }
+
+    /** Releases GL objects; pending callbacks receive null. */
+    public void dispose() {
+        for (int slot = 0; slot < RING; slot++) {
+            Consumer<ByteBuffer> cb = callbacks[slot];
+            callbacks[slot] = null;
+            if (fence[slot] != 0L) { GL32.glDeleteSync(fence[slot]); fence[slot] = 0L; }
+            if (pbo[slot] != 0) { GL15.glDeleteBuffers(pbo[slot]); pbo[slot] = 0; capacity[slot] = 0; }
+            if (cb != null) cb.accept(null);
+        }
+        nextSlot = 0;
+    }
+
+    private boolean ready(int slot) {
+        if (++polls[slot] >= MAX_POLLS) return true;
+        int status = GL32.glClientWaitSync(fence[slot], GL32.GL_SYNC_FLUSH_COMMANDS_BIT, 0L);
+        return status == GL32.GL_ALREADY_SIGNALED || status == GL32.GL_CONDITION_SATISFIED || status == GL32.GL_WAIT_FAILED;
+    }
+
+    private void deliver(int slot) {
+        Consumer<ByteBuffer> cb = callbacks[slot];
+        callbacks[slot] = null;
+        if (fence[slot] != 0L) { GL32.glDeleteSync(fence[slot]); fence[slot] = 0L; }
+        long bytes = (long) width[slot] * height[slot] * 4;
+        int prevBinding = GL11.glGetInteger(GL21.GL_PIXEL_PACK_BUFFER_BINDING);
+        ByteBuffer mapped = null;
+        boolean delivered = false;
+        try {
+            GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, pbo[slot]);
+            mapped = GL30.glMapBufferRange(GL21.GL_PIXEL_PACK_BUFFER, 0L, bytes, GL30.GL_MAP_READ_BIT);
+            delivered = true;
+            cb.accept(mapped);
+        } finally {
+            if (!delivered) cb.accept(null);
+            if (mapped != null) GL15.glUnmapBuffer(GL21.GL_PIXEL_PACK_BUFFER);
+            GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, prevBinding);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package asagiribeta.voxelmind.client.capture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder working directly on the ARGB array (no BufferedImage copy). Writes 8-bit RGB (frames are opaque)
+ * and compresses row strips in parallel, pigz style: each strip is a raw deflate segment ending on a sync flush,
+ * primed with the previous strip's last 32 KiB as dictionary, so the concatenation is one valid zlib stream.
+ */
+public final class PngFrameEncoder implements FrameEncoder {
+    public enum Filter {
+        NONE(0), SUB(1), UP(2), PAETH(4),
+        /** Per row, the filter with the smallest sum of absolute residuals (libpng's heuristic). */
+        ADAPTIVE(-1);
+
+        /** PNG filter-type byte written at the start of each row. */
+        final int code;
+        Filter(int code) { this.code = code; }
+
+        public static Filter parse(String s) {
+            if (s == null) return ADAPTIVE;
+            try { return valueOf(s.trim().toUpperCase(Locale.ROOT)); } catch (Exception ignored) { return ADAPTIVE; }
+        }
+    }
+
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final int STRIP_BYTES = 128 * 1024;
+    private static final int DICT_BYTES = 32 * 1024;
+    private static final Filter[] CANDIDATES = { Filter.NONE, Filter.SUB, Filter.UP, Filter.PAETH };
+
+    // Dedicated pool so encoding never competes with the common pool other mods may rely on.
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)),
+            pool -> {
+                var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("VoxelMind-PNG-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+
+    private final int level;
+    private final Filter filter;
+    // Filtered scanlines of the previous frame; taken for the duration of an encode and reused while the size fits.
+    private byte[] spareFiltered;
+
+    public PngFrameEncoder(int level, Filter filter) {
+        this.level = Math.max(0, Math.min(9, level));
+        this.filter = filter == null ? Filter.ADAPTIVE : filter;
+    }
+
+    @Override public String mimeType() { return "image/png"; }
+    @Override public String name() { return "png"; }
+
+    @Override
+    public byte[] encode(int w, int h, int[] argb) throws IOException {
+        int stride = w * 3 + 1;
+        int rowsPerStrip = Math.max(1, STRIP_BYTES / stride);
+        int strips = (h + rowsPerStrip - 1) / rowsPerStrip;
+        byte[] filtered = takeFiltered(h * stride);
+        try {
+            return encodeFiltered(w, h, argb, stride, rowsPerStrip, strips, filtered);
+        } finally {
+            giveFiltered(filtered);
+        }
+    }
+
+    private byte[] encodeFiltered(int w, int h, int[] argb, int stride, int rowsPerStrip, int strips, byte[] filtered) throws IOException {
+        // Phase 1: filter rows (each row only reads the raw rows y and y-1, so strips are independent).
+        List<ForkJoinTask<?>> filterTasks = new ArrayList<>(strips);
+        for (int i = 0; i < strips; i++) {
+            int y0 = i * rowsPerStrip, y1 = Math.min(h, y0 + rowsPerStrip);
+            filterTasks.add(POOL.submit(() -> filterRows(argb, w, y0, y1, filtered)));
+        }
+        for (ForkJoinTask<?> t : filterTasks) t.join();
+
+        // Phase 2: compress strips; strip i is primed with the 32 KiB of filtered data preceding it.
+        List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(strips);
+        for (int i = 0; i < strips; i++) {
+            int from = i * rowsPerStrip * stride, to = Math.min(h, (i + 1) * rowsPerStrip) * stride;
+            boolean last = i == strips - 1;
+            tasks.add(POOL.submit(() -> compress(filtered, from, to, last)));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(1024, w * h / 2));
+        out.write(SIGNATURE);
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, w); putInt(ihdr, 4, h);
+        ihdr[8] = 8; ihdr[9] = 2; // 8-bit, truecolour; compression/filter/interlace = 0
+        writeChunk(out, "IHDR", ihdr);
+
+        // One IDAT per strip: zlib header, raw deflate segments, then Adler-32 of all filtered bytes.
+        writeChunk(out, "IDAT", new byte[] { 0x78, (byte) 0x9C });
+        for (ForkJoinTask<byte[]> t : tasks) {
+            byte[] seg = t.join();
+            if (seg.length > 0) writeChunk(out, "IDAT", seg);
+        }
+        Adler32 adler = new Adler32();
+        adler.update(filtered, 0, h * stride);
+        byte[] trailer = new byte[4];
+        putInt(trailer, 0, (int) adler.getValue());
+        writeChunk(out, "IDAT", trailer);
+        writeChunk(out, "IEND", new byte[0]);
+        return out.toByteArray();
+    }
+
+    private synchronized byte[] takeFiltered(int len) {
+        byte[] b = spareFiltered;
+        spareFiltered = null;
+        return b != null && b.length >= len ? b : new byte[len];
+    }
+
+    private synchronized void giveFiltered(byte[] b) { spareFiltered = b; }
+
+    private void filterRows(int[] argb, int w, int y0, int y1, byte[] dst) {
+        int stride = w * 3 + 1;
+        byte[] cur = new byte[w * 3], prev = new byte[w * 3], scratch = new byte[w * 3], best = new byte[w * 3];
+        if (y0 > 0) toRgb(argb, w, y0 - 1, prev);
+        for (int y = y0; y < y1; y++) {
+            toRgb(argb, w, y, cur);
+            int off = y * stride;
+            Filter f = filter;
+            if (f == Filter.ADAPTIVE) {
+                long bestScore = Long.MAX_VALUE;
+                f = Filter.NONE;
+                for (Filter cand : CANDIDATES) {
+                    long score = applyFilter(cand, cur, prev, scratch);
+                    if (score < bestScore) { bestScore = score; f = cand; byte[] tmp = best; best = scratch; scratch = tmp; }
+                }
+            } else {
+                applyFilter(f, cur, prev, best);
+            }
+            dst[off] = (byte) f.code;
+            System.arraycopy(best, 0, dst, off + 1, cur.length);
+            byte[] tmp = prev; prev = cur; cur = tmp;
+        }
+    }
+
+    private byte[] compress(byte[] filtered, int from, int to, boolean last) {
+        Deflater def = new Deflater(level, true);
+        try {
+            if (filter != Filter.NONE) def.setStrategy(Deflater.FILTERED);
+            if (from > 0) {
+                int dictFrom = Math.max(0, from - DICT_BYTES);
+                def.setDictionary(filtered, dictFrom, from - dictFrom);
+            }
+            def.setInput(filtered, from, to - from);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream((to - from) / 2 + 64);
+            byte[] buf = new byte[16 * 1024];
+            if (last) {
+                def.finish();
+                while (!def.finished()) { int n = def.deflate(buf); bos.write(buf, 0, n); }
+            } else {
+                // SYNC_FLUSH ends the segment on a byte boundary. The first call may only apply the strategy change,
+                // so keep going until all input is consumed and the output buffer no longer comes back full.
+                int n;
+                do { n = def.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH); bos.write(buf, 0, n); }
+                while (!def.needsInput() || n == buf.length);
+            }
+            return bos.toByteArray();
+        } finally {
+            def.end();
+        }
+    }
+
+    private static void toRgb(int[] argb, int w, int y, byte[] dst) {
+        int src = y * w;
+        for (int x = 0, o = 0; x < w; x++) {
+            int c = argb[src + x];
+            dst[o++] = (byte) (c >>> 16); dst[o++] = (byte) (c >>> 8); dst[o++] = (byte) c;
+        }
+    }
+
+    /** Writes the filtered row into {@code out}; returns the sum of absolute (signed) residuals for adaptive selection. */
+    private static long applyFilter(Filter f, byte[] cur, byte[] prev, byte[] out) {
+        long sum = 0;
+        int n = cur.length;
+        for (int i = 0; i < n; i++) {
+            int x = cur[i] & 0xFF;
+            int a = i >= 3 ? cur[i - 3] & 0xFF : 0;
+            int b = prev[i] & 0xFF;
+            int v = switch (f) {
+                case SUB -> x - a;
+                case UP -> x - b;
+                case PAETH -> x - paeth(a, b, i >= 3 ? prev[i - 3] & 0xFF : 0);
+                default -> x;
+            };
+            byte r = (byte) v;
+            out[i] = r;
+            sum += Math.abs((int) r);
+        }
+        return sum;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) return a;
+        return pb <= pc ? b : c;
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data) {
+        byte[] hdr = new byte[8];
+        putInt(hdr, 0, data.length);
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(typeBytes, 0, hdr, 4, 4);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.write(hdr, 0, 8);
+        out.write(data, 0, data.length);
+        byte[] c = new byte[4];
+        putInt(c, 0, (int) crc.getValue());
+        out.write(c, 0, 4);
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24); b[off + 1] = (byte) (v >>> 16); b[off + 2] = (byte) (v >>> 8); b[off + 3] = (byte) v;
+    }
+}
@@ -0,0 +1,270 @@
+package asagiribeta.voxelmind.client.macro;
+
+import asagiribeta.voxelmind.client.agent.ActionSchema;
+import asagiribeta.voxelmind.client.input.InputApplier;
+import asagiribeta.voxelmind.client.navigation.PathNavigator;
+import asagiribeta.voxelmind.client.util.CrosshairUtil;
+import asagiribeta.voxelmind.client.util.TargetingUtil;
+import asagiribeta.voxelmind.config.Config;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.phys.AABB;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Runs one macro action at a time at the full tick rate, built on {@link PathNavigator} (walking), {@link TargetingUtil}
+ * (finding blocks and entities, aiming) and {@link InputApplier} (keys). The controller starts a macro from a decision or
+ * plan step and calls {@link #tick} every CONTROL tick; progress and the outcome are reported as a status line for the
+ * next prompt. Client thread only.
+ */
+public final class MacroExecutor {
+    private static final Logger LOGGER = LogManager.getLogger("VoxelMind-AI");
+    private static final int MAX_PATH_FAILURES = 3;
+    private static final int ITEM_PICKUP_TICKS = 40;
+
+    private final PathNavigator navigator;
+    private final InputApplier input;
+
+    private ActionSchema.Macro macro = null;
+    private int elapsed = 0;
+    private BlockPos block = null;        // mine: block being broken; goto: destination
+    private Entity entity = null;         // follow: followed entity; collect: item being fetched
+    private BlockPos pathGoal = null;     // goal of the navigator's current path
+    private int progress = 0;             // blocks mined / items collected
+    private int pathFailures = 0, waitTicks = 0;
+    private final Set<Integer> skippedItems = new HashSet<>();
+    private String outcome = null;        // reported in prompts until one is actually sent
+    private boolean lastFailed = false;
+    private long started = 0, succeeded = 0, failed = 0;
+
+    public MacroExecutor(PathNavigator navigator, InputApplier input) {
+        this.navigator = navigator;
+        this.input = input;
+    }
+
+    public boolean isActive() { return macro != null; }
+
+    /** Whether the last finished macro failed (meaningful once {@link #isActive()} is false). */
+    public boolean lastFailed() { return lastFailed; }
+
+    public void start(Minecraft mc, ActionSchema.Macro m) {
+        if (macro != null) release(mc);
+        macro = m;
+        elapsed = 0;
+        block = null;
+        entity = null;
+        pathGoal = null;
+        progress = 0;
+        pathFailures = 0;
+        waitTicks = 0;
+        skippedItems.clear();
+        outcome = null;
+        started++;
+        if (Config.get().debug()) LOGGER.info("[VoxelMind] Macro started: {}", name());
+    }
+
+    /** Stops without reporting (replaced by a newer decision, or the mode changed). */
+    public void cancel(Minecraft mc) {
+        if (macro == null) return;
+        release(mc);
+        macro = null;
+    }
+
+    /** Stops and reports {@code reason} as a failure. */
+    public void abort(Minecraft mc, String reason) {
+        if (macro != null) finish(mc, false, reason);
+    }
+
+    public void tick(Minecraft mc, Config cfg) {
+        if (macro == null || mc.player == null || mc.level == null) return;
+        elapsed++;
+        int limit = macro.ticks() > 0 ? macro.ticks() : cfg.macroTimeoutTicks();
+        if (elapsed > limit) {
+            // Following has no natural end; its time limit is its duration
+            if (macro.kind() == ActionSchema.MacroKind.FOLLOW_ENTITY) finish(mc, true, "followed for " + limit + " ticks");
+            else finish(mc, false, "timed out after " + limit + " ticks" + progressSuffix());
+            return;
+        }
+        switch (macro.kind()) {
+            case MINE_TARGET_UNTIL_BROKEN -> tickMine(mc, cfg);
+            case FOLLOW_ENTITY -> tickFollow(mc, cfg);
+            case COLLECT_NEARBY_ITEMS -> tickCollect(mc);
+            case GOTO_BLOCK_OF_TYPE -> tickGoto(mc, cfg);
+        }
+    }
+
+    private void tickMine(Minecraft mc, Config cfg) {
+        LocalPlayer p = mc.player;
+        int count = macro.count() > 0 ? macro.count() : 1;
+        if (block != null && mc.level.getBlockState(block).isAir()) {
+            progress++;
+            block = null;
+            waitTicks = 0;
+            if (progress >= count) { finish(mc, true, "mined " + progress + " block(s)"); return; }
+        }
+        if (block == null) {
+            Optional<ActionSchema.Target> t = macro.target().filter(ActionSchema.Target::hasBlock);
+            if (t.isEmpty()) { finish(mc, false, "needs a block target"); return; }
+            int radius = macro.radius() > 0 ? macro.radius() : cfg.targetLockRadius();
+            block = TargetingUtil.resolveTargetBlockPreferVisible(mc, t.get(), radius).orElse(null);
+            if (block == null) {
+                finish(mc, progress > 0, (progress > 0 ? "mined " + progress + " block(s), " : "") + "no matching block within " + radius);
+                return;
+            }
+        }
+        double reach = cfg.assistPrimaryReachDistance();
+        if (block.distToCenterSqr(p.getX(), p.getEyeY(), p.getZ()) > reach * reach) {
+            input.applyMouse(mc, new ActionSchema.Mouse(ActionSchema.PressType.RELEASE, ActionSchema.PressType.NONE));
+            if (!approach(p, block, 2, 0)) finish(mc, false, "cannot reach block at " + fmt(block) + progressSuffix());
+            return;
+        }
+        navigator.cancel();
+        input.applyMovement(mc, ActionSchema.Movement.none());
+        TargetingUtil.computeViewToPos(mc, block).ifPresent(v -> input.applyView(mc, v));
+        // The crosshair follows the new view a frame later; after a short wait dig through whatever blocks the line of sight
+        boolean onBlock = CrosshairUtil.getCrosshairInfo(mc).map(c -> c.pos().equals(block)).orElse(false);
+        boolean hold = onBlock || ++waitTicks > 10;
+        input.applyMouse(mc, new ActionSchema.Mouse(hold ? ActionSchema.PressType.HOLD : ActionSchema.PressType.RELEASE, ActionSchema.PressType.NONE));
+    }
+
+    private void tickFollow(Minecraft mc, Config cfg) {
+        LocalPlayer p = mc.player;
+        Optional<ActionSchema.Target> t = macro.target().filter(ActionSchema.Target::hasEntity);
+        if (t.isEmpty()) { finish(mc, false, "needs an entity target"); return; }
+        int radius = macro.radius() > 0 ? macro.radius() : cfg.targetLockRadius() * 2;
+        if (entity == null || entity.isRemoved() || !entity.isAlive()) {
+            boolean lost = entity != null;
+            entity = TargetingUtil.resolveTargetEntity(mc, t.get(), radius).orElse(null);
+            if (entity == null) { finish(mc, false, (lost ? "lost the entity" : "no matching entity") + " within " + radius); return; }
+        }
+        int distance = macro.distance() > 0 ? macro.distance() : 3;
+        TargetingUtil.computeViewToEntity(mc, entity).ifPresent(v -> input.applyView(mc, v));
+        if (entity.distanceToSqr(p) <= (distance + 1) * (distance + 1)) {
+            navigator.cancel();
+            pathGoal = null;
+            input.applyMovement(mc, ActionSchema.Movement.none());
+            return;
+        }
+        if (waitTicks > 0) { waitTicks--; return; }
+        // Re-plan only once the entity has moved a couple of blocks from the current path's goal
+        if (!approach(p, entity.blockPosition(), distance, 2)) {
+            if (++pathFailures >= MAX_PATH_FAILURES * 2) { finish(mc, false, "cannot reach the entity"); return; }
+            waitTicks = 20;
+        } else {
+            pathFailures = 0;
+        }
+    }
+
+    private void tickCollect(Minecraft mc) {
+        LocalPlayer p = mc.player;
+        int radius = macro.radius() > 0 ? macro.radius() : 8;
+        if (entity != null && entity.isRemoved()) {
+            // Removed next to us: picked up (merged stacks are counted too; close enough for a progress report)
+            if (entity.distanceToSqr(p) <= 9) progress++;
+            entity = null;
+        }
+        if (entity == null) {
+            entity = nearestItem(mc, radius);
+            waitTicks = 0;
+            if (entity == null) { finish(mc, true, progress > 0 ? "collected " + progress + " item stack(s)" : "no items within " + radius); return; }
+        }
+        if (p.blockPosition().distSqr(entity.blockPosition()) <= 1) {
+            navigator.cancel();
+            input.applyMovement(mc, ActionSchema.Movement.none());
+            // Still lying there: pickup delay, a full inventory or an item we cannot get at
+            if (++waitTicks > ITEM_PICKUP_TICKS) { skippedItems.add(entity.getId()); entity = null; }
+            return;
+        }
+        if (!approach(p, entity.blockPosition(), 1, 1)) { skippedItems.add(entity.getId()); entity = null; }
+    }
+
+    private void tickGoto(Minecraft mc, Config cfg) {
+        LocalPlayer p = mc.player;
+        if (block == null) {
+            Optional<ActionSchema.Target> t = macro.target().filter(ActionSchema.Target::hasBlock);
+            if (t.isEmpty()) { finish(mc, false, "needs a block target"); return; }
+            int radius = macro.radius() > 0 ? macro.radius() : cfg.targetLockRadius() * 2;
+            block = TargetingUtil.resolveTargetPos(mc, t.get(), radius).orElse(null);
+            if (block == null) { finish(mc, false, "no matching block within " + radius); return; }
+        }
+        int distance = macro.distance() > 0 ? macro.distance() : 2;
+        if (p.blockPosition().distSqr(block) <= distance * distance) { finish(mc, true, "reached block at " + fmt(block)); return; }
+        if (navigator.isActive()) return;
+        // The path ended short of the goal (or none was found): try again a few times
+        if (pathGoal != null && ++pathFailures >= MAX_PATH_FAILURES) { finish(mc, false, "no path to block at " + fmt(block)); return; }
+        if (!approach(p, block, distance, 0)) finish(mc, false, "no path to block at " + fmt(block));
+    }
+
+    /**
+     * Keeps a path running towards {@code goal} (within {@code within} blocks); a running path is kept while its goal is
+     * within {@code slack} blocks of {@code goal}. True when in range or moving; false if no path exists.
+     */
+    private boolean approach(LocalPlayer p, BlockPos goal, double within, double slack) {
+        if (p.blockPosition().distSqr(goal) <= within * within) return true;
+        if (navigator.isActive() && pathGoal != null && pathGoal.distSqr(goal) <= slack * slack) return true;
+        navigator.startNear(p, goal, within);
+        pathGoal = goal;
+        return navigator.isActive();
+    }
+
+    private Entity nearestItem(Minecraft mc, int radius) {
+        LocalPlayer p = mc.player;
+        Entity best = null;
+        double bestD2 = Double.MAX_VALUE;
+        for (ItemEntity item : mc.level.getEntitiesOfClass(ItemEntity.class, new AABB(p.blockPosition()).inflate(radius))) {
+            if (item.isRemoved() || skippedItems.contains(item.getId())) continue;
+            double d2 = item.distanceToSqr(p);
+            if (d2 < bestD2) { bestD2 = d2; best = item; }
+        }
+        return best;
+    }
+
+    private void finish(Minecraft mc, boolean ok, String text) {
+        release(mc);
+        outcome = name() + (ok ? " done: " : " failed: ") + text;
+        lastFailed = !ok;
+        if (ok) succeeded++; else failed++;
+        if (Config.get().debug()) LOGGER.info("[VoxelMind] Macro {}", outcome);
+        macro = null;
+    }
+
+    private void release(Minecraft mc) {
+        navigator.cancel();
+        input.applyMovement(mc, ActionSchema.Movement.none());
+        input.applyMouse(mc, new ActionSchema.Mouse(ActionSchema.PressType.RELEASE, ActionSchema.PressType.RELEASE));
+    }
+
+    /** Prompt line describing the running macro or how the last one ended (until {@link #statusSent}); empty if there is nothing to report. */
+    public String status() {
+        if (macro != null) return "Macro: " + name() + " running for " + elapsed + " ticks" + progressSuffix();
+        return outcome == null ? "" : "Macro: " + outcome;
+    }
+
+    /** The model has been sent {@code status}; the outcome it reported is not repeated (a newer one is kept). */
+    public void statusSent(String status) {
+        if (outcome != null && status.equals("Macro: " + outcome)) outcome = null;
+    }
+
+    public String stats() { return "macros=" + started + " ok=" + succeeded + " failed=" + failed; }
+
+    private String progressSuffix() {
+        return switch (macro.kind()) {
+            case MINE_TARGET_UNTIL_BROKEN -> ", mined " + progress + "/" + Math.max(1, macro.count());
+            case COLLECT_NEARBY_ITEMS -> ", collected " + progress;
+            default -> "";
+        };
+    }
+
+    private String name() { return macro.kind().name().toLowerCase(Locale.ROOT); }
+
+    private static String fmt(BlockPos b) { return b.getX() + "," + b.getY() + "," + b.getZ(); }
+}
@@ -41,12 +41,25 @@ public final class PathNavigator {
     public boolean isActive() { return planned != null && execIndex < planned.size(); }
     public void cancel() { planned = null; execIndex = 0; jumpTicksRemaining = 0; }
 
-    public void start(LocalPlayer player, ActionSchema.Navigation nav) {
+    public void start(LocalPlayer player, ActionSchema.Navigation nav) { start(player, player.blockPosition(), nav); }
+
+    /** Plans from the player's current block to {@code origin} + the relative request (origin = pose the request was made from). */
+    public void start(LocalPlayer player, BlockPos origin, ActionSchema.Navigation nav) {
         cancel();
         if (!nav.hasRequest()) return;
         BlockPos start = player.blockPosition();
-        BlockPos goal = start.offset(nav.dxOrZero(), nav.dyOrZero(), nav.dzOrZero());
-        planned = plan(player.level(), start, goal, 64);
+        BlockPos goal = origin.offset(nav.dxOrZero(), nav.dyOrZero(), nav.dzOrZero());
+        planned = plan(player.level(), start, goal, 64, 0);
+        execIndex = 0;
+    }
+
+    /**
+     * Plans to the nearest reachable block within {@code maxDistance} of {@code target} (e.g. a block to mine or an
+     * entity to approach; the target itself need not be walkable). Stays inactive when already within range or unreachable.
+     */
+    public void startNear(LocalPlayer player, BlockPos target, double maxDistance) {
+        cancel();
+        planned = plan(player.level(), player.blockPosition(), target, 64, maxDistance * maxDistance);
         execIndex = 0;
     }
 
@@ -89,8 +102,8 @@ public final class PathNavigator {
     }
 
     // ---------------- Planning (A*) ----------------
-    private List<AStarNode> plan(Level level, BlockPos start, BlockPos goal, int limitRadius) {
-        if (start.equals(goal)) return List.of();
+    private List<AStarNode> plan(Level level, BlockPos start, BlockPos goal, int limitRadius, double goalRadiusSq) {
+        if (start.distSqr(goal) <= goalRadiusSq) return List.of();
         int maxNodes = 15000;
         PriorityQueue<AStarNode> open = new PriorityQueue<>();
         Map<BlockPos, AStarNode> best = new HashMap<>();
@@ -107,7 +120,7 @@ public final class PathNavigator {
 
         while (!open.isEmpty() && best.size() < maxNodes) {
             AStarNode cur = open.poll();
-            if (cur.node.pos.equals(goal)) return reconstruct(cur);
+            if (cur.node.pos.distSqr(goal) <= goalRadiusSq) return reconstruct(cur);
             for (AStarNode nxt : expand(level, cur, goal, minX, maxX, minY, maxY, minZ, maxZ)) {
                 AStarNode existing = best.get(nxt.node.pos());
                 if (existing == null || nxt.g < existing.g) { best.put(nxt.node.pos(), nxt); open.add(nxt); }
@@ -1,5 +1,13 @@
 package asagiribeta.voxelmind.client.util;
 
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+import asagiribeta.voxelmind.client.capture.FrameBufferPool;
+import asagiribeta.voxelmind.client.capture.FrameEncoder;
+import asagiribeta.voxelmind.client.capture.FrameHash;
+import asagiribeta.voxelmind.client.capture.FrameResizer;
+import asagiribeta.voxelmind.client.capture.ImageIoPngEncoder;
+import asagiribeta.voxelmind.client.capture.PngFrameEncoder;
+import asagiribeta.voxelmind.client.capture.PboReadback;
 import com.mojang.blaze3d.pipeline.RenderTarget;
 import com.mojang.blaze3d.platform.NativeImage;
 import net.minecraft.client.Minecraft;
@@ -7,18 +15,28 @@ import net.minecraft.client.Screenshot;
 import asagiribeta.voxelmind.config.Config;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.system.MemoryUtil;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+/**
+ * Two-stage capture pipeline for agent frames.
+ * Stage 1 (render thread): GPU readback / NativeImage memcpy into a pooled direct staging buffer.
+ * Stage 2 (encoder thread): colour conversion, flipping, resizing and encoding (PNG/JPEG); the finished frame goes to the caller's callback.
+ */
 public final class ScreenshotUtil {
     private ScreenshotUtil() {}
 
@@ -31,80 +49,196 @@ public final class ScreenshotUtil {
     private static volatile boolean reflectionBroken = false; // when true, skip reflection strategy entirely
     private static volatile long lastReflectionWarnTick = 0L; // rate-limit warning logs
 
+    // Render-thread cost per capture (readback + staging) and encoder cost, last value plus EWMA
+    private static volatile long lastRenderNanos = -1, lastEncodeNanos = -1;
+    private static volatile double avgRenderNanos = -1, avgEncodeNanos = -1;
+
     public static String debugInfo() {
-        return "strategy=" + lastStrategy + ", manual=" + lastManual + ", bytes=" + lastBytes + (lastError!=null? (", err=" + lastError):"");
+        return "readback=" + Config.get().screenshotReadback() + (PBO.inFlight() > 0 ? "(pending=" + PBO.inFlight() + ")" : "")
+                + ", strategy=" + lastStrategy + ", manual=" + lastManual + ", out=" + lastOutSize + ", format=" + Config.get().screenshotFormat() + ", bytes=" + lastBytes + ", bulkCopy=" + !bulkBroken
+                + ", pool=" + STAGING.hits() + "/" + STAGING.misses()
+                + ", rtMs=" + fmtMs(lastRenderNanos) + " (avg " + fmtMs(avgRenderNanos) + ")"
+                + ", encMs=" + fmtMs(lastEncodeNanos) + " (avg " + fmtMs(avgEncodeNanos) + ")"
+                + (lastError!=null? (", err=" + lastError):"");
     }
 
+    /** Render-thread milliseconds spent on the most recent capture, or -1 if none yet. */
+    public static double lastRenderThreadMillis() { return lastRenderNanos < 0 ? -1 : lastRenderNanos / 1e6; }
+
+    private static String fmtMs(double nanos) { return nanos < 0 ? "n/a" : String.format("%.2f", nanos / 1e6); }
+    private static double ewma(double prev, long sample) { return prev < 0 ? sample : prev * 0.8 + sample * 0.2; }
+
     // Strategy caching
     private static volatile Strategy cachedStrategy = null;
     private enum StrategyType { RT_CONSUMER, RT_INT_CONSUMER, RT_RETURNS_IMAGE, PATH_RT_CONSUMER, PATH_RT_INT_CONSUMER, UNSUPPORTED }
     private record Strategy(StrategyType type, Method method) {}
 
-    public static byte[] captureToPngBytes(Minecraft mc) {
+    // Stage handoff: raw RGBA bytes (R,G,B,A per pixel) in a pooled buffer, or pre-converted ARGB from the reflective getter.
+    private record StagedFrame(int width, int height, ByteBuffer rgba, boolean bottomUp, int[] argb) {}
+
+    // Direct RGBA staging buffers plus ARGB/resize work arrays; debugInfo reports pool hits/misses.
+    private static final FrameBufferPool STAGING = new FrameBufferPool(3);
+    private static final PboReadback PBO = new PboReadback();
+
+    // Bounded encoder: one worker plus a short queue; when full the frame is dropped instead of piling up latency.
+    private static final ThreadPoolExecutor ENCODER = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(2), r -> {
+                Thread t = new Thread(r, "VoxelMind-Encode");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /** Per-capture bookkeeping; only touched on the render thread except for the final callback. */
+    private static final class CaptureJob {
+        final Consumer<EncodedFrame> callback;
+        long renderNanos = 0;
+        boolean insideInvoke = false;
+        boolean handedOff = false;
+        // Render time is recorded once, when both the synchronous part and the hand-off (possibly a later frame) are done
+        boolean syncDone = false, recorded = false;
+        CaptureJob(Consumer<EncodedFrame> callback) { this.callback = callback; }
+    }
+
+    /**
+     * Synchronous convenience wrapper around {@link #captureAsync}; waits briefly for the encoder.
+     * Do not call from the render thread when the screenshot callback is deferred to a later frame.
+     */
+    public static EncodedFrame captureBlocking(Minecraft mc) {
+        AtomicReference<EncodedFrame> ref = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        captureAsync(mc, frame -> { ref.set(frame); latch.countDown(); });
+        try { latch.await(1000, TimeUnit.MILLISECONDS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        return ref.get();
+    }
+
+    /**
+     * Starts a capture. Must be called on the render thread. {@code onFrame} is invoked exactly once,
+     * normally on the encoder thread, with the encoded frame (format per config) or null on failure.
+     */
+    public static void captureAsync(Minecraft mc, Consumer<EncodedFrame> onFrame) {
+        CaptureJob job = new CaptureJob(onFrame);
         try {
             lastManual = false; lastBytes = -1; lastError = null; lastStrategy = StrategyType.UNSUPPORTED;
             RenderTarget rt = mc.getMainRenderTarget();
-            if (rt == null || rt.width <= 0 || rt.height <= 0) { lastError = "rt-null-or-zero"; return null; }
-            AtomicReference<byte[]> ref = new AtomicReference<>();
-            CountDownLatch latch = new CountDownLatch(1);
+            if (rt == null || rt.width <= 0 || rt.height <= 0) { lastError = "rt-null-or-zero"; onFrame.accept(null); return; }
+            String readback = Config.get().screenshotReadback();
+            if (!"screenshot".equals(readback)) {
+                lastManual = true;
+                long t0 = System.nanoTime();
+                if (!"pbo".equals(readback) || !issuePbo(job, rt)) handOff(job, stageManual(rt));
+                job.renderNanos += System.nanoTime() - t0;
+                job.syncDone = true;
+                recordRenderTime(job);
+                return;
+            }
             Consumer<NativeImage> cb = img -> {
-                try (img) {
-                    byte[] bytes = encodeNativeImage(img);
-                    ref.set(bytes);
-                } catch (Throwable t) {
-                    if (Config.get().debug()) LOGGER.warn("[VoxelMind] Callback encode failed: {}", t.toString());
-                } finally { latch.countDown(); }
+                long t0 = System.nanoTime();
+                StagedFrame staged = null;
+                try (img) { staged = stageNativeImage(img); } catch (Throwable t) { if (Config.get().debug()) LOGGER.warn("[VoxelMind] Async staging failed: {}", t.toString()); }
+                if (staged == null) { lastManual = true; staged = stageManual(rt); }
+                if (!job.insideInvoke) job.renderNanos += System.nanoTime() - t0;
+                handOff(job, staged);
             };
-            boolean invoked = invokeScreenshot(rt, cb);
-            if (!invoked) {
+            long t0 = System.nanoTime();
+            job.insideInvoke = true;
+            boolean ok = invokeScreenshot(rt, cb);
+            job.insideInvoke = false;
+            if (!ok && !job.handedOff) {
                 lastManual = true;
-                byte[] fb = manualFallback(rt);
-                if (fb != null) lastBytes = fb.length; else lastError = "manual-null";
-                return fb;
+                handOff(job, stageManual(rt));
             }
-            // Intentionally ignore boolean return (timeout) here; we will fall back if ref not set.
-            latch.await(500, TimeUnit.MILLISECONDS);
-            byte[] out = ref.get();
-            if (out == null) {
-                lastManual = true;
-                out = manualFallback(rt);
-                if (out != null) lastBytes = out.length; else lastError = "manual-after-null";
-            } else lastBytes = out.length;
-            return out;
+            job.renderNanos += System.nanoTime() - t0;
+            job.syncDone = true;
+            recordRenderTime(job);
         } catch (Throwable t) {
             lastError = t.getClass().getSimpleName();
-            if (Config.get().debug()) LOGGER.error("[VoxelMind] captureToPngBytes fatal: {}", t.toString());
-            return null;
+            if (Config.get().debug()) LOGGER.error("[VoxelMind] captureAsync fatal: {}", t.toString());
+            if (!job.handedOff) { job.handedOff = true; onFrame.accept(null); }
         }
     }
 
-    public static void captureAsync(Minecraft mc, Consumer<byte[]> onPngBytes) {
+    /**
+     * Per-tick hook (render thread): maps PBO readbacks issued on earlier frames and hands them to the encoder.
+     * Falls back to synchronous reads permanently if the driver rejects the PBO path.
+     */
+    public static void tick() {
+        if (PBO.inFlight() == 0) return;
+        try { PBO.poll(); }
+        catch (Throwable t) {
+            lastError = "pbo-" + t.getClass().getSimpleName();
+            LOGGER.warn("[VoxelMind] PBO readback failed, using synchronous glReadPixels: {}", t.toString());
+            PBO.markUnsupported();
+            try { PBO.dispose(); } catch (Throwable ignored) {}
+        }
+    }
+
+    /** Issues an async PBO read; the mapped pixels are copied into staging on a later tick. False if PBOs are unavailable or busy. */
+    private static boolean issuePbo(CaptureJob job, RenderTarget rt) {
+        int w = rt.width, h = rt.height, bytes = w * h * 4;
         try {
-            lastManual = false; lastBytes = -1; lastError = null; lastStrategy = StrategyType.UNSUPPORTED;
-            RenderTarget rt = mc.getMainRenderTarget();
-            if (rt == null || rt.width <= 0 || rt.height <= 0) { lastError = "rt-null-or-zero"; onPngBytes.accept(null); return; }
-            Consumer<NativeImage> cb = img -> {
-                byte[] data = null;
-                try (img) { data = encodeNativeImage(img); } catch (Throwable t) { if (Config.get().debug()) LOGGER.warn("[VoxelMind] Async encode failed: {}", t.toString()); }
-                if (data == null) {
-                    try { lastManual = true; data = manualFallback(rt); if (data!=null) lastBytes = data.length; else lastError = "manual-null"; } catch (Throwable ignored) {}
-                } else lastBytes = data.length;
-                try { onPngBytes.accept(data); } catch (Throwable ignored) {}
-            };
-            boolean ok = invokeScreenshot(rt, cb);
-            if (!ok) {
-                lastManual = true;
-                byte[] fb = manualFallback(rt);
-                if (fb != null) lastBytes = fb.length; else lastError = "manual-null";
-                onPngBytes.accept(fb);
-            }
+            return PBO.issue(w, h, mapped -> {
+                long t0 = System.nanoTime();
+                StagedFrame staged = null;
+                if (mapped != null) {
+                    ByteBuffer buf = STAGING.acquire(bytes);
+                    MemoryUtil.memCopy(MemoryUtil.memAddress(mapped), MemoryUtil.memAddress(buf), bytes);
+                    staged = new StagedFrame(w, h, buf, true, null);
+                } else lastError = "pbo-map-failed";
+                job.renderNanos += System.nanoTime() - t0;
+                handOff(job, staged);
+            });
         } catch (Throwable t) {
-            lastError = t.getClass().getSimpleName();
-            if (Config.get().debug()) LOGGER.error("[VoxelMind] captureAsync fatal: {}", t.toString());
-            onPngBytes.accept(null);
+            PBO.markUnsupported();
+            if (Config.get().debug()) LOGGER.warn("[VoxelMind] PBO issue failed, falling back: {}", t.toString());
+            return false;
         }
     }
 
+    private static void recordRenderTime(CaptureJob job) {
+        if (!job.syncDone || !job.handedOff || job.recorded) return;
+        job.recorded = true;
+        lastRenderNanos = job.renderNanos;
+        avgRenderNanos = ewma(avgRenderNanos, job.renderNanos);
+    }
+
+    /** Queues stage 2 for a staged frame; a null frame or a full encoder queue reports null to the caller. */
+    private static void handOff(CaptureJob job, StagedFrame staged) {
+        if (job.handedOff) { releaseStaged(staged); return; }
+        job.handedOff = true;
+        recordRenderTime(job);
+        if (staged == null) {
+            if (lastError == null) lastError = "manual-null";
+            safeAccept(job.callback, null);
+            return;
+        }
+        try {
+            ENCODER.execute(() -> {
+                EncodedFrame data = null;
+                long t0 = System.nanoTime();
+                try { data = encodeStaged(staged); }
+                catch (Throwable t) { lastError = t.getClass().getSimpleName(); if (Config.get().debug()) LOGGER.warn("[VoxelMind] Encode failed: {}", t.toString()); }
+                finally { releaseStaged(staged); }
+                long dt = System.nanoTime() - t0;
+                lastEncodeNanos = dt; avgEncodeNanos = ewma(avgEncodeNanos, dt);
+                if (data != null) lastBytes = data.size();
+                if (Config.get().debug()) LOGGER.debug("[VoxelMind] Capture {}x{} renderThread={}ms encode={}ms bytes={}", staged.width(), staged.height(), fmtMs(job.renderNanos), fmtMs(dt), data == null ? -1 : data.size());
+                safeAccept(job.callback, data);
+            });
+        } catch (RejectedExecutionException e) {
+            releaseStaged(staged);
+            lastError = "encoder-busy";
+            safeAccept(job.callback, null);
+        }
+    }
+
+    private static void releaseStaged(StagedFrame staged) {
+        if (staged == null) return;
+        STAGING.release(staged.rgba());
+        STAGING.releaseInts(staged.argb());
+    }
+
+    private static void safeAccept(Consumer<EncodedFrame> cb, EncodedFrame data) { try { cb.accept(data); } catch (Throwable ignored) {} }
+
     private static Strategy resolveStrategy() {
         Strategy local = cachedStrategy; if (local != null) return local;
         synchronized (ScreenshotUtil.class) {
@@ -158,23 +292,229 @@ public final class ScreenshotUtil {
         return false;
     }
 
+
     private static volatile Method pixelGetterCache;
-    private static byte[] encodeNativeImage(NativeImage img) throws Exception {
+
+    /** Render-thread part for the screenshot path: memcpy the image into staging, or reflective copy as last resort. */
+    private static StagedFrame stageNativeImage(NativeImage img) throws Exception {
         if (img == null) return null;
         int w = img.getWidth(); int h = img.getHeight(); if (w<=0 || h<=0) return null;
+        ByteBuffer staging = stageBulk(img, w, h);
+        if (staging != null) return new StagedFrame(w, h, staging, false, null);
+        int[] argb = STAGING.acquireInts(w*h);
+        try { copyPixelsReflective(img, w, h, argb); }
+        catch (Exception e) { STAGING.releaseInts(argb); throw e; }
+        return new StagedFrame(w, h, null, false, argb);
+    }
+
+    /** Render-thread part for the manual path: glReadPixels into a pooled buffer, no per-pixel work. */
+    private static StagedFrame stageManual(RenderTarget rt) {
+        ByteBuffer buf = null;
+        try {
+            int w = rt.width; int h = rt.height; if (w <= 0 || h <= 0) return null;
+            buf = STAGING.acquire(w * h * 4);
+            GL11.glReadPixels(0,0,w,h, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buf);
+            return new StagedFrame(w, h, buf, true, null);
+        } catch (Throwable t) {
+            STAGING.release(buf);
+            lastError = t.getClass().getSimpleName();
+            if (Config.get().debug()) LOGGER.warn("[VoxelMind] manualFallback failed: {}", t.toString());
+            return null;
+        }
+    }
+
+    /** Encoder-thread part: colour conversion (+flip for GL readback), optional downscale and encoding. */
+    private static EncodedFrame encodeStaged(StagedFrame f) throws Exception {
+        int w = f.width(), h = f.height();
+        int[] argb = f.argb();
+        int[] converted = null, small = null;
+        try {
+            if (argb == null) {
+                argb = converted = STAGING.acquireInts(w*h);
+                rgbaToArgb(f.rgba(), w, h, f.bottomUp(), argb);
+            }
+            Config cfg = Config.get();
+            int[] out = FrameResizer.fitLongEdge(w, h, cfg.screenshotMaxEdge());
+            if (out[0] != w || out[1] != h) {
+                small = STAGING.acquireInts(out[0]*out[1]);
+                FrameResizer.resize(argb, w, h, small, out[0], out[1], FrameResizer.Filter.parse(cfg.screenshotResizeFilter()));
+                argb = small; w = out[0]; h = out[1];
+            }
+            lastOutSize = w + "x" + h;
+            FrameEncoder enc = encoderFor(cfg);
+            return new EncodedFrame(enc.encode(w, h, argb), enc.mimeType(), w, h, FrameHash.dHash(argb, w, h));
+        } finally {
+            STAGING.releaseInts(converted);
+            STAGING.releaseInts(small);
+        }
+    }
+
+    private static volatile String lastOutSize = "n/a";
+
+    // Rebuilt only when the configured format/quality changes.
+    private static FrameEncoder cachedEncoder;
+    private static String cachedEncoderKey;
+    private static synchronized FrameEncoder encoderFor(Config cfg) {
+        String key = cfg.screenshotFormat() + ":" + cfg.screenshotJpegQuality() + ":" + cfg.pngCompressionLevel() + ":" + cfg.pngFilter();
+        if (!key.equals(cachedEncoderKey)) {
+            cachedEncoder = FrameEncoder.forFormat(cfg.screenshotFormat(), cfg.screenshotJpegQuality(), cfg.pngCompressionLevel(), cfg.pngFilter());
+            cachedEncoderKey = key;
+        }
+        return cachedEncoder;
+    }
+
+    /** Converts R,G,B,A byte pixels into ARGB ints, optionally flipping rows (GL origin is bottom-left). */
+    private static void rgbaToArgb(ByteBuffer rgba, int w, int h, boolean bottomUp, int[] dst) {
+        var ints = rgba.duplicate().clear().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        for (int y = 0; y < h; y++) {
+            int srcRow = (bottomUp ? h-1-y : y) * w;
+            ints.position(srcRow);
+            ints.get(dst, y*w, w);
+        }
+        int n = w * h;
+        for (int i = 0; i < n; i++) {
+            int c = dst[i]; // little-endian R,G,B,A == 0xAABBGGRR
+            dst[i] = (c & 0xFF00FF00) | ((c & 0xFF) << 16) | ((c >>> 16) & 0xFF);
+        }
+    }
+
+    // Off-heap pixel pointer of NativeImage, resolved once by field signature (names differ per loader/mappings).
+    private static volatile MethodHandle[] nativeFieldsCache;
+    private static volatile boolean bulkBroken = false;
+
+    /**
+     * One-pass memcpy of the NativeImage backing memory (RGBA bytes) into a pooled staging buffer.
+     * Returns null when the layout cannot be verified so the caller can use the reflective getter instead.
+     */
+    private static ByteBuffer stageBulk(NativeImage img, int w, int h) {
+        if (bulkBroken || img.format() != NativeImage.Format.RGBA) return null;
+        ByteBuffer dst = null;
+        try {
+            long size = (long) w * h * 4;
+            long ptr = resolvePixelPointer(img, size);
+            if (ptr == 0L) return null;
+            dst = STAGING.acquire((int) size);
+            copyBulk(ptr, dst, size);
+            return dst;
+        } catch (Throwable t) {
+            STAGING.release(dst);
+            bulkBroken = true;
+            if (Config.get().debug()) LOGGER.warn("[VoxelMind] Bulk pixel copy disabled: {}", t.toString());
+            return null;
+        }
+    }
+
+    private static void copyBulk(long ptr, ByteBuffer dst, long size) { MemoryUtil.memCopy(ptr, MemoryUtil.memAddress(dst), size); }
+
+    /** NativeImage carries exactly two long fields (pointer, size); accept the pointer only when size matches w*h*4. */
+    private static long resolvePixelPointer(NativeImage img, long expectedSize) throws Throwable {
+        MethodHandle[] fields = nativeFieldsCache;
+        if (fields == null) {
+            synchronized (ScreenshotUtil.class) {
+                if (nativeFieldsCache == null) {
+                    java.util.List<MethodHandle> found = new java.util.ArrayList<>(2);
+                    for (Field f : NativeImage.class.getDeclaredFields()) {
+                        if (java.lang.reflect.Modifier.isStatic(f.getModifiers()) || f.getType() != long.class) continue;
+                        f.setAccessible(true); found.add(MethodHandles.lookup().unreflectGetter(f));
+                    }
+                    nativeFieldsCache = found.toArray(new MethodHandle[0]);
+                }
+                fields = nativeFieldsCache;
+            }
+        }
+        if (fields.length != 2) return 0L;
+        long a = (long) fields[0].invoke(img); long b = (long) fields[1].invoke(img);
+        if (b == expectedSize && a != 0L && a != expectedSize) return a;
+        if (a == expectedSize && b != 0L && b != expectedSize) return b;
+        return 0L;
+    }
+
+    private static void copyPixelsReflective(NativeImage img, int w, int h, int[] dst) throws Exception {
         Method getter = resolvePixelGetter(img.getClass());
+        if (getter == null) throw new IllegalStateException("No pixel getter");
+        for (int y=0;y<h;y++) {
+            for (int x=0;x<w;x++) {
+                dst[y*w+x] = (int)getter.invoke(img,x,y);
+            }
+        }
+    }
+
+    /**
+     * Debug benchmark comparing the bulk (memcpy + convert) and reflective copy paths on off-screen images at common resolutions.
+     * Allocates its own NativeImages and copy buffers, so it is safe to run off the render thread and leaves the staging
+     * pool and the production bulk-copy fallback untouched (a failure here only shows up as "n/a").
+     */
+    public static String benchmarkPixelCopy() {
+        int[][] sizes = { {1280,720}, {1920,1080}, {2560,1440} };
+        StringBuilder sb = new StringBuilder();
+        for (int[] s : sizes) {
+            int w = s[0], h = s[1];
+            int[] dst = new int[w*h];
+            try (NativeImage img = new NativeImage(w, h, false)) {
+                long bulkNs = -1, reflNs = -1;
+                long size = (long) w * h * 4;
+                try {
+                    long ptr = img.format() == NativeImage.Format.RGBA ? resolvePixelPointer(img, size) : 0L;
+                    if (ptr != 0L) {
+                        ByteBuffer b = ByteBuffer.allocateDirect((int) size);
+                        copyBulk(ptr, b, size); // warm-up
+                        long t0 = System.nanoTime();
+                        for (int i = 0; i < 10; i++) {
+                            copyBulk(ptr, b, size);
+                            rgbaToArgb(b, w, h, false, dst);
+                        }
+                        bulkNs = (System.nanoTime() - t0) / 10;
+                    }
+                } catch (Throwable ignored) {}
+                try {
+                    copyPixelsReflective(img, w, h, dst);
+                    long t0 = System.nanoTime();
+                    for (int i = 0; i < 3; i++) copyPixelsReflective(img, w, h, dst);
+                    reflNs = (System.nanoTime() - t0) / 3;
+                } catch (Exception ignored) {}
+                if (sb.length() > 0) sb.append("; ");
+                sb.append(w).append('x').append(h)
+                  .append(" bulk=").append(bulkNs < 0 ? "n/a" : String.format("%.2fms", bulkNs / 1e6))
+                  .append(" reflect=").append(reflNs < 0 ? "n/a" : String.format("%.2fms", reflNs / 1e6));
+            } catch (Throwable t) {
+                if (sb.length() > 0) sb.append("; ");
+                sb.append(w).append('x').append(h).append(" err=").append(t.getClass().getSimpleName());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Debug benchmark comparing the ImageIO PNG baseline with the parallel PNG encoder (and JPEG for reference)
+     * on a synthetic 1080p frame with blocky texture and noise, roughly like a game scene. Safe off the render thread.
+     */
+    public static String benchmarkEncoders() {
+        int w = 1920, h = 1080;
         int[] argb = new int[w*h];
-        if (getter != null) {
-            for (int y=0;y<h;y++) {
-                for (int x=0;x<w;x++) {
-                    int c = (int)getter.invoke(img,x,y);
-                    argb[y*w+x] = c;
-                }
+        java.util.Random rnd = new java.util.Random(42);
+        for (int y = 0; y < h; y++) for (int x = 0; x < w; x++) {
+            int block = ((x >> 4) * 31 + (y >> 4) * 17) % 7;
+            argb[y*w+x] = 0xFF000000 | (30 + block * 25 + rnd.nextInt(12)) << 16 | (90 + block * 12 + rnd.nextInt(12)) << 8 | (40 + rnd.nextInt(24));
+        }
+        Config cfg = Config.get();
+        FrameEncoder[] encoders = {
+                new ImageIoPngEncoder(),
+                new PngFrameEncoder(cfg.pngCompressionLevel(), PngFrameEncoder.Filter.parse(cfg.pngFilter())),
+                FrameEncoder.forFormat("jpeg", cfg.screenshotJpegQuality(), 0, null)
+        };
+        StringBuilder sb = new StringBuilder(w + "x" + h);
+        for (FrameEncoder enc : encoders) {
+            try {
+                enc.encode(w, h, argb); // warm-up
+                long t0 = System.nanoTime();
+                byte[] out = null;
+                for (int i = 0; i < 3; i++) out = enc.encode(w, h, argb);
+                sb.append("; ").append(enc.name()).append('=').append(String.format("%.1fms", (System.nanoTime() - t0) / 3e6)).append('/').append(out.length / 1024).append("KB");
+            } catch (Throwable t) {
+                sb.append("; ").append(enc.name()).append(" err=").append(t.getClass().getSimpleName());
             }
-        } else {
-            throw new IllegalStateException("No pixel getter");
         }
-        return encodeARGBToPNG(w,h,argb);
+        return sb.toString();
     }
 
     private static Method resolvePixelGetter(Class<?> cls) {
@@ -191,38 +531,4 @@ public final class ScreenshotUtil {
             return null;
         }
     }
-
-    private static byte[] encodeARGBToPNG(int w, int h, int[] argb) throws Exception {
-        BufferedImage bi = new BufferedImage(w,h,BufferedImage.TYPE_INT_ARGB);
-        bi.setRGB(0,0,w,h,argb,0,w);
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            ImageIO.write(bi, "png", baos);
-            return baos.toByteArray();
-        }
-    }
-
-    private static byte[] manualFallback(RenderTarget rt) {
-        try {
-            int w = rt.width; int h = rt.height; if (w <= 0 || h <= 0) return null;
-            int bytes = w * h * 4; var buf = BufferUtils.createByteBuffer(bytes);
-            GL11.glReadPixels(0,0,w,h, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buf);
-            int[] argb = new int[w*h];
-            for (int y=0;y<h;y++) {
-                int srcY = h-1-y;
-                for (int x=0;x<w;x++) {
-                    int i = (srcY*w + x)*4;
-                    int r = buf.get(i) & 0xFF;
-                    int g = buf.get(i+1) & 0xFF;
-                    int b = buf.get(i+2) & 0xFF;
-                    int a = buf.get(i+3) & 0xFF;
-                    argb[y*w+x] = (a<<24)|(r<<16)|(g<<8)|b;
-                }
-            }
-            return encodeARGBToPNG(w,h,argb);
-        } catch (Throwable t) {
-            lastError = t.getClass().getSimpleName();
-            if (Config.get().debug()) LOGGER.warn("[VoxelMind] manualFallback failed: {}", t.toString());
-            return null;
-        }
-    }
 }
@@ -10,16 +10,49 @@ import java.io.Reader;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
+/**
+ * Mod configuration. {@link #get()} returns an immutable snapshot: changes go through {@link #update} (or a reload),
+ * which publishes a new instance with a higher {@link #version()} and notifies listeners with the old and new snapshot.
+ * Snapshots have no setters; values are changed on a {@link Builder}.
+ */
 public final class Config {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static volatile Config INSTANCE;
+    private static final List<BiConsumer<Config, Config>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private transient long version = 0;
 
     @SerializedName("agent_url") private String agentUrl = "";
     @SerializedName("api_key") private String apiKey = "";
     @SerializedName("model") private String model = "";
+    // Optional list of backends routed by latency/error rate with circuit breaking; when non-empty it replaces agent_url
+    @SerializedName("agent_endpoints") private List<Endpoint> agentEndpoints = new ArrayList<>();
     @SerializedName("decision_interval_ticks") private int decisionIntervalTicks = 5;
+    // Adaptive cadence: start at decision_interval_ticks and adjust to measured agent latency within these bounds
+    @SerializedName("adaptive_cadence") private boolean adaptiveCadence = true;
+    @SerializedName("decision_interval_min_ticks") private int decisionIntervalMinTicks = 2;
+    @SerializedName("decision_interval_max_ticks") private int decisionIntervalMaxTicks = 100;
+    // Decisions allowed in flight at once (1-4); >1 captures and sends the next frame while earlier requests are outstanding
+    @SerializedName("pipeline_depth") private int pipelineDepth = 1;
+    // Decisions applied more than this many ticks after their frame was captured keep chat but drop movement/aim/clicks.
+    // 240 ticks (12 s) covers the default 10 s request timeout plus capture, encode and apply, so a slow but on-time
+    // reply is still acted on; only replies that outlived the timeout budget are degraded.
+    @SerializedName("action_max_age_ticks") private int actionMaxAgeTicks = 240;
+    // Time limit for plan steps waiting to arrive or for a block to break, unless the step sets its own
+    @SerializedName("plan_step_timeout_ticks") private int planStepTimeoutTicks = 200;
+    // Time limit for macro actions that do not set their own (for follow_entity it is the duration)
+    @SerializedName("macro_timeout_ticks") private int macroTimeoutTicks = 600;
+    // Local reflexes in CONTROL (lava, falling, melee threat, low health) that act at once and raise an urgent decision
+    @SerializedName("reflexes") private boolean reflexes = true;
+    @SerializedName("reflex_low_health") private float reflexLowHealth = 6.0f;
+    @SerializedName("reflex_fall_distance") private float reflexFallDistance = 4.0f;
     @SerializedName("debug") private boolean debug = false;
     @SerializedName("allow_public_chat") private boolean allowPublicChat = false;
     @SerializedName("show_ai_prefix") private boolean showAIPrefix = true;
@@ -51,6 +84,38 @@ public final class Config {
     @SerializedName("ai_local_echo_window_ticks") private int aiLocalEchoWindowTicks = 10; // ticks window to ignore own echoed messages
     @SerializedName("ai_no_repeat_consecutive") private boolean aiNoRepeatConsecutive = true; // suppress identical consecutive AI chat
 
+    // Screenshot capture tuning
+    // screenshot = vanilla Screenshot API (sync glReadPixels fallback); pbo = async pixel-buffer ring (1-2 frames latency); sync = glReadPixels only
+    @SerializedName("screenshot_readback") private String screenshotReadback = "screenshot";
+    // Long edge (px) frames are downscaled to before encoding; 0 disables. Filter: box (area average) | nearest
+    @SerializedName("screenshot_max_edge") private int screenshotMaxEdge = 1024;
+    @SerializedName("screenshot_resize_filter") private String screenshotResizeFilter = "box";
+    // Upload format: png (lossless) | jpeg (lossy, quality 1-100; typically 5-10x smaller for game scenes)
+    @SerializedName("screenshot_format") private String screenshotFormat = "png";
+    @SerializedName("screenshot_jpeg_quality") private int screenshotJpegQuality = 80;
+    // PNG tuning: deflate level 0-9 and row filter none|sub|up|paeth|adaptive
+    @SerializedName("png_compression_level") private int pngCompressionLevel = 4;
+    @SerializedName("png_filter") private String pngFilter = "adaptive";
+
+    // Skip agent requests while the frame (dHash Hamming distance <= threshold, 0-64) and game/conversation state are unchanged.
+    // A decision is still forced after frame_skip_max_ticks so a static scene is re-checked periodically.
+    @SerializedName("skip_unchanged_frames") private boolean skipUnchangedFrames = true;
+    @SerializedName("frame_change_threshold") private int frameChangeThreshold = 4;
+    @SerializedName("frame_skip_max_ticks") private int frameSkipMaxTicks = 200;
+
+    // Request "stream": true and parse server-sent events; navigation/mouse/target are applied before chat text completes
+    @SerializedName("stream_responses") private boolean streamResponses = false;
+    // While active, ping the agent endpoint after this many idle seconds so the pooled connection stays open; 0 disables
+    @SerializedName("keep_alive_seconds") private int keepAliveSeconds = 20;
+    // Send a duplicate request when the first has not answered by this latency percentile (50-99); first reply wins
+    @SerializedName("hedge_requests") private boolean hedgeRequests = false;
+    @SerializedName("hedge_percentile") private int hedgePercentile = 95;
+    // Client-side limits per endpoint (0 = off); Retry-After / x-ratelimit-* headers and 429 backoff apply regardless
+    @SerializedName("rate_limit_requests_per_minute") private int rateLimitRequestsPerMinute = 0;
+    @SerializedName("rate_limit_tokens_per_minute") private int rateLimitTokensPerMinute = 0;
+
+    private Config() {}
+
     public static Config get() {
         if (INSTANCE == null) { synchronized (Config.class) { if (INSTANCE == null) load(); } }
         return INSTANCE;
@@ -58,20 +123,56 @@ public final class Config {
 
     public static void load() {
         Path path = getConfigPath();
+        Config loaded;
         try {
             if (Files.notExists(path)) {
                 Files.createDirectories(path.getParent());
                 Config def = new Config();
                 try (Writer w = Files.newBufferedWriter(path)) { GSON.toJson(def, w); }
-                INSTANCE = def;
+                loaded = def;
             } else {
                 try (Reader r = Files.newBufferedReader(path)) {
-                    INSTANCE = Objects.requireNonNullElse(GSON.fromJson(r, Config.class), new Config());
+                    loaded = Objects.requireNonNullElse(GSON.fromJson(r, Config.class), new Config());
                 }
             }
         } catch (IOException e) {
             e.printStackTrace();
-            INSTANCE = new Config();
+            loaded = new Config();
+        }
+        notifyListeners(swap(loaded), loaded);
+    }
+
+    /** Applies {@code mutator} to a copy of the current snapshot, publishes it and persists it to disk. */
+    public static void update(Consumer<Builder> mutator) {
+        Config prev, next;
+        synchronized (Config.class) {
+            Builder b = new Builder(get());
+            mutator.accept(b);
+            next = b.build();
+            prev = swap(next);
+        }
+        save();
+        notifyListeners(prev, next);
+    }
+
+    /** Builder starting from the defaults, for snapshots that are used without being published. */
+    public static Builder builder() { return new Builder(new Config()); }
+
+    private static Config copy(Config c) { return GSON.fromJson(GSON.toJson(c), Config.class); }
+
+    /** Called with (previous, current) after every publish; previous is null for the first load. Runs on the publishing thread. */
+    public static void addListener(BiConsumer<Config, Config> listener) { LISTENERS.add(listener); }
+
+    private static synchronized Config swap(Config next) {
+        Config prev = INSTANCE;
+        next.version = prev == null ? 1 : prev.version + 1;
+        INSTANCE = next;
+        return prev;
+    }
+
+    private static void notifyListeners(Config prev, Config next) {
+        for (BiConsumer<Config, Config> l : LISTENERS) {
+            try { l.accept(prev, next); } catch (Exception e) { e.printStackTrace(); }
         }
     }
 
@@ -86,10 +187,26 @@ public final class Config {
     public static Path getConfigPath() { return Platform.getConfigFolder().resolve("voxelmind.json"); }
 
     // Getters
+    public long version() { return version; }
     public String agentUrl() { return agentUrl == null ? "" : agentUrl; }
     public String apiKey() { return apiKey == null ? "" : apiKey; }
     public String model() { return model == null ? "" : model; }
+    /** Endpoints with a non-blank url; unmodifiable. */
+    public List<Endpoint> agentEndpoints() {
+        if (agentEndpoints == null) return List.of();
+        return agentEndpoints.stream().filter(e -> e != null && !e.url().isBlank()).toList();
+    }
     public int decisionIntervalTicks() { return Math.max(1, decisionIntervalTicks); }
+    public boolean adaptiveCadence() { return adaptiveCadence; }
+    public int pipelineDepth() { return Math.max(1, Math.min(4, pipelineDepth)); }
+    public int actionMaxAgeTicks() { return Math.max(1, actionMaxAgeTicks); }
+    public int planStepTimeoutTicks() { return Math.max(1, planStepTimeoutTicks); }
+    public int macroTimeoutTicks() { return Math.max(1, macroTimeoutTicks); }
+    public boolean reflexes() { return reflexes; }
+    public float reflexLowHealth() { return Math.max(0f, reflexLowHealth); }
+    public float reflexFallDistance() { return Math.max(1f, reflexFallDistance); }
+    public int decisionIntervalMinTicks() { return Math.max(1, decisionIntervalMinTicks); }
+    public int decisionIntervalMaxTicks() { return Math.max(decisionIntervalMinTicks(), decisionIntervalMaxTicks); }
     public boolean debug() { return debug; }
     public boolean allowPublicChat() { return allowPublicChat; }
     public boolean showAIPrefix() { return showAIPrefix; }
@@ -105,25 +222,116 @@ public final class Config {
     public boolean autoReplyLoose() { return autoReplyLoose; }
     public int aiLocalEchoWindowTicks() { return Math.max(1, aiLocalEchoWindowTicks); }
     public boolean aiNoRepeatConsecutive() { return aiNoRepeatConsecutive; }
+    public String screenshotReadback() {
+        String v = screenshotReadback == null ? "" : screenshotReadback.trim().toLowerCase(java.util.Locale.ROOT);
+        return switch (v) { case "pbo", "sync" -> v; default -> "screenshot"; };
+    }
+    public int screenshotMaxEdge() { return screenshotMaxEdge <= 0 ? 0 : Math.max(64, screenshotMaxEdge); }
+    public String screenshotResizeFilter() { return screenshotResizeFilter == null ? "box" : screenshotResizeFilter; }
+    public String screenshotFormat() {
+        String v = screenshotFormat == null ? "" : screenshotFormat.trim().toLowerCase(java.util.Locale.ROOT);
+        return v.equals("jpeg") || v.equals("jpg") ? "jpeg" : "png";
+    }
+    public int screenshotJpegQuality() { return Math.max(1, Math.min(100, screenshotJpegQuality)); }
+    public int pngCompressionLevel() { return Math.max(0, Math.min(9, pngCompressionLevel)); }
+    public String pngFilter() { return pngFilter == null ? "adaptive" : pngFilter; }
+    public boolean skipUnchangedFrames() { return skipUnchangedFrames; }
+    public int frameChangeThreshold() { return Math.max(0, Math.min(64, frameChangeThreshold)); }
+    public int frameSkipMaxTicks() { return Math.max(1, frameSkipMaxTicks); }
+    public boolean streamResponses() { return streamResponses; }
+    public int keepAliveSeconds() { return Math.max(0, keepAliveSeconds); }
+    public boolean hedgeRequests() { return hedgeRequests; }
+    public int hedgePercentile() { return Math.max(50, Math.min(99, hedgePercentile)); }
+    public int rateLimitRequestsPerMinute() { return Math.max(0, rateLimitRequestsPerMinute); }
+    public int rateLimitTokensPerMinute() { return Math.max(0, rateLimitTokensPerMinute); }
+
+    /**
+     * Mutable copy of a snapshot. {@link #update} hands one to its mutator; {@link #build} returns an unpublished snapshot
+     * (the builder keeps no reference to it, so later setter calls cannot change it).
+     */
+    public static final class Builder {
+        private final Config config;
+
+        private Builder(Config base) { this.config = copy(base); }
+
+        public Config build() { return copy(config); }
+
+        public Builder setAgentUrl(String v) { config.agentUrl = v == null ? "" : v; return this; }
+        public Builder setApiKey(String v) { config.apiKey = v == null ? "" : v; return this; }
+        public Builder setModel(String v) { config.model = v == null ? "" : v; return this; }
+        public Builder setAgentEndpoints(List<Endpoint> v) { config.agentEndpoints = v == null ? new ArrayList<>() : new ArrayList<>(v); return this; }
+        public Builder setDecisionIntervalTicks(int v) { config.decisionIntervalTicks = Math.max(1, v); return this; }
+        public Builder setAdaptiveCadence(boolean v) { config.adaptiveCadence = v; return this; }
+        public Builder setPipelineDepth(int v) { config.pipelineDepth = Math.max(1, Math.min(4, v)); return this; }
+        public Builder setActionMaxAgeTicks(int v) { config.actionMaxAgeTicks = Math.max(1, v); return this; }
+        public Builder setPlanStepTimeoutTicks(int v) { config.planStepTimeoutTicks = Math.max(1, v); return this; }
+        public Builder setMacroTimeoutTicks(int v) { config.macroTimeoutTicks = Math.max(1, v); return this; }
+        public Builder setReflexes(boolean v) { config.reflexes = v; return this; }
+        public Builder setReflexLowHealth(float v) { config.reflexLowHealth = Math.max(0f, v); return this; }
+        public Builder setReflexFallDistance(float v) { config.reflexFallDistance = Math.max(1f, v); return this; }
+        public Builder setDecisionIntervalMinTicks(int v) { config.decisionIntervalMinTicks = Math.max(1, v); return this; }
+        public Builder setDecisionIntervalMaxTicks(int v) { config.decisionIntervalMaxTicks = Math.max(1, v); return this; }
+        public Builder setDebug(boolean v) { config.debug = v; return this; }
+        public Builder setAllowPublicChat(boolean v) { config.allowPublicChat = v; return this; }
+        public Builder setShowAIPrefix(boolean v) { config.showAIPrefix = v; return this; }
+        public Builder setTargetLockRadius(int v) { config.targetLockRadius = Math.max(1, v); return this; }
+        public Builder setAssistOnlyPrimaryWhenAiming(boolean v) { config.assistOnlyPrimaryWhenAiming = v; return this; }
+        public Builder setAssistPrimaryReachDistance(float v) { config.assistPrimaryReachDistance = v; return this; }
+        public Builder setAiChatDedupTicks(int v) { config.aiChatDedupTicks = Math.max(1, v); return this; }
+        public Builder setAiChatMinIntervalTicks(int v) { config.aiChatMinIntervalTicks = Math.max(0, v); return this; }
+        public Builder setAiChatRecentLimit(int v) { config.aiChatRecentLimit = Math.max(1, v); return this; }
+        public Builder setAiAutoReply(boolean v) { config.aiAutoReply = v; return this; }
+        public Builder setAiConversationLimit(int v) { config.aiConversationLimit = Math.max(4, v); return this; }
+        public Builder setObserveAnswerOnly(boolean v) { config.observeAnswerOnly = v; return this; }
+        public Builder setAutoReplyLoose(boolean v) { config.autoReplyLoose = v; return this; }
+        public Builder setAiLocalEchoWindowTicks(int v) { config.aiLocalEchoWindowTicks = Math.max(1, v); return this; }
+        public Builder setAiNoRepeatConsecutive(boolean v) { config.aiNoRepeatConsecutive = v; return this; }
+        public Builder setScreenshotReadback(String v) { config.screenshotReadback = v == null ? "screenshot" : v; return this; }
+        public Builder setScreenshotMaxEdge(int v) { config.screenshotMaxEdge = Math.max(0, v); return this; }
+        public Builder setScreenshotResizeFilter(String v) { config.screenshotResizeFilter = v == null ? "box" : v; return this; }
+        public Builder setScreenshotFormat(String v) { config.screenshotFormat = v == null ? "png" : v; return this; }
+        public Builder setScreenshotJpegQuality(int v) { config.screenshotJpegQuality = Math.max(1, Math.min(100, v)); return this; }
+        public Builder setPngCompressionLevel(int v) { config.pngCompressionLevel = Math.max(0, Math.min(9, v)); return this; }
+        public Builder setPngFilter(String v) { config.pngFilter = v == null ? "adaptive" : v; return this; }
+        public Builder setSkipUnchangedFrames(boolean v) { config.skipUnchangedFrames = v; return this; }
+        public Builder setFrameChangeThreshold(int v) { config.frameChangeThreshold = Math.max(0, Math.min(64, v)); return this; }
+        public Builder setFrameSkipMaxTicks(int v) { config.frameSkipMaxTicks = Math.max(1, v); return this; }
+        public Builder setStreamResponses(boolean v) { config.streamResponses = v; return this; }
+        public Builder setKeepAliveSeconds(int v) { config.keepAliveSeconds = Math.max(0, v); return this; }
+        public Builder setHedgeRequests(boolean v) { config.hedgeRequests = v; return this; }
+        public Builder setHedgePercentile(int v) { config.hedgePercentile = Math.max(50, Math.min(99, v)); return this; }
+        public Builder setRateLimitRequestsPerMinute(int v) { config.rateLimitRequestsPerMinute = Math.max(0, v); return this; }
+        public Builder setRateLimitTokensPerMinute(int v) { config.rateLimitTokensPerMinute = Math.max(0, v); return this; }
+    }
 
-    // Setters
-    public void setAgentUrl(String v) { this.agentUrl = v == null ? "" : v; }
-    public void setApiKey(String v) { this.apiKey = v == null ? "" : v; }
-    public void setModel(String v) { this.model = v == null ? "" : v; }
-    public void setDecisionIntervalTicks(int v) { this.decisionIntervalTicks = Math.max(1, v); }
-    public void setDebug(boolean v) { this.debug = v; }
-    public void setAllowPublicChat(boolean v) { this.allowPublicChat = v; }
-    public void setShowAIPrefix(boolean v) { this.showAIPrefix = v; }
-    public void setTargetLockRadius(int v) { this.targetLockRadius = Math.max(1, v); }
-    public void setAssistOnlyPrimaryWhenAiming(boolean v) { this.assistOnlyPrimaryWhenAiming = v; }
-    public void setAssistPrimaryReachDistance(float v) { this.assistPrimaryReachDistance = v; }
-    public void setAiChatDedupTicks(int v) { this.aiChatDedupTicks = Math.max(1, v); }
-    public void setAiChatMinIntervalTicks(int v) { this.aiChatMinIntervalTicks = Math.max(0, v); }
-    public void setAiChatRecentLimit(int v) { this.aiChatRecentLimit = Math.max(1, v); }
-    public void setAiAutoReply(boolean v) { this.aiAutoReply = v; }
-    public void setAiConversationLimit(int v) { this.aiConversationLimit = Math.max(4, v); }
-    public void setObserveAnswerOnly(boolean v) { this.observeAnswerOnly = v; }
-    public void setAutoReplyLoose(boolean v) { this.autoReplyLoose = v; }
-    public void setAiLocalEchoWindowTicks(int v) { this.aiLocalEchoWindowTicks = Math.max(1, v); }
-    public void setAiNoRepeatConsecutive(boolean v) { this.aiNoRepeatConsecutive = v; }
+    /** One entry of {@code agent_endpoints}. Blank model / api_key fall back to the top-level values. */
+    public static final class Endpoint {
+        @SerializedName("name") private String name = "";
+        @SerializedName("url") private String url = "";
+        @SerializedName("model") private String model = "";
+        @SerializedName("api_key") private String apiKey = "";
+        // Relative share of traffic when endpoints are equally healthy
+        @SerializedName("weight") private double weight = 1.0;
+
+        public Endpoint() {}
+
+        public Endpoint(String name, String url, String model, String apiKey, double weight) {
+            this.name = name; this.url = url; this.model = model; this.apiKey = apiKey; this.weight = weight;
+        }
+
+        public String name() { return name == null || name.isBlank() ? url() : name; }
+        public String url() { return url == null ? "" : url.trim(); }
+        public String model() { return model == null ? "" : model; }
+        public String apiKey() { return apiKey == null ? "" : apiKey; }
+        public double weight() { return weight > 0 ? weight : 1.0; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Endpoint e && name().equals(e.name()) && url().equals(e.url()) && model().equals(e.model())
+                    && apiKey().equals(e.apiKey()) && weight() == e.weight();
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(name(), url(), model(), apiKey(), weight()); }
+    }
 }
@@ -0,0 +1,135 @@
+package asagiribeta.voxelmind.client.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatCompletionDecoderTest {
+    private static ChatCompletionDecoder.Envelope envelope(String json) throws IOException {
+        return ChatCompletionDecoder.decodeEnvelope(new StringReader(json));
+    }
+
+    @Test
+    void envelopeTakesFirstChoiceContentAndUsage() throws IOException {
+        var env = envelope("""
+                {"id":"x","object":"chat.completion","choices":[
+                  {"index":0,"message":{"role":"assistant","content":"{\\"chat\\":\\"hi\\"}"},"finish_reason":"stop"},
+                  {"index":1,"message":{"role":"assistant","content":"second"}}],
+                 "usage":{"prompt_tokens":1200,"completion_tokens":30,"total_tokens":1230,
+                          "prompt_tokens_details":{"cached_tokens":1024}}}""");
+        assertEquals("{\"chat\":\"hi\"}", env.content());
+        assertEquals(new ChatCompletionDecoder.Usage(1230, 1200, 1024), env.usage());
+    }
+
+    @Test
+    void envelopeWithoutContentOrUsage() throws IOException {
+        var env = envelope("{\"choices\":[],\"error\":{\"message\":\"nope\"}}");
+        assertNull(env.content());
+        assertSame(ChatCompletionDecoder.Usage.NONE, env.usage());
+        assertNull(envelope("[1,2]").content());
+    }
+
+    @Test
+    void deltaContentOfStreamChunks() {
+        assertEquals("{\"na", ChatCompletionDecoder.decodeDeltaContent("{\"choices\":[{\"index\":0,\"delta\":{\"content\":\"{\\\"na\"}}]}"));
+        assertNull(ChatCompletionDecoder.decodeDeltaContent("{\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\"}}]}"));
+        assertNull(ChatCompletionDecoder.decodeDeltaContent("not json"));
+    }
+
+    @Test
+    void actionsDecodeEveryMember() throws IOException {
+        ActionSchema.Actions a = ChatCompletionDecoder.decodeActions("""
+                {"chat":{"message":"  on my way "},
+                 "navigation":{"dx":3,"dy":"-1","dz":2.6},
+                 "view":{"yawAbs":90,"pitchDelta":"-10.5"},
+                 "mouse":{"left":"hold","right":"tap"},
+                 "target":{"blockId":"minecraft:oak_log","x":1,"y":64,"z":-2},
+                 "unknown":{"nested":[1,2,3]}}""");
+        assertEquals(Optional.of("on my way"), a.chat().message());
+        assertEquals(new ActionSchema.Navigation(Optional.of(3), Optional.of(-1), Optional.of(3)), a.navigation());
+        assertEquals(Optional.of(90f), a.view().yawAbs());
+        assertEquals(Optional.of(-10.5f), a.view().pitchDelta());
+        assertEquals(new ActionSchema.Mouse(ActionSchema.PressType.HOLD, ActionSchema.PressType.TAP), a.mouse());
+        ActionSchema.Target t = a.target().orElseThrow();
+        assertTrue(t.hasPos());
+        assertEquals(Optional.of("minecraft:oak_log"), t.blockId());
+        assertTrue(a.plan().isEmpty());
+        assertTrue(a.macro().isEmpty());
+    }
+
+    @Test
+    void looseShapesAreAccepted() throws IOException {
+        // Markdown fence around the object, chat as a bare string, mouse as a bare press, trailing text
+        ActionSchema.Actions a = ChatCompletionDecoder.decodeActions("```json\n{\"chat\":\"yo\",\"mouse\":\"TAP\"}\n```");
+        assertEquals(Optional.of("yo"), a.chat().message());
+        assertEquals(new ActionSchema.Mouse(ActionSchema.PressType.TAP, ActionSchema.PressType.NONE), a.mouse());
+        ActionSchema.Actions b = ChatCompletionDecoder.decodeActions("{\"navigation\":{\"dx\":\"abc\"},\"mouse\":{\"left\":\"wiggle\"}}");
+        assertEquals(Optional.empty(), b.navigation().dx());
+        assertEquals(ActionSchema.PressType.NONE, b.mouse().left());
+    }
+
+    @Test
+    void contentWithoutObjectIsAnError() {
+        assertThrows(IOException.class, () -> ChatCompletionDecoder.decodeActions("I cannot help with that."));
+        assertThrows(IOException.class, () -> ChatCompletionDecoder.decodeActions("{\"chat\":\"unterminated"));
+    }
+
+    @Test
+    void planStepsDefaultTheirCondition() throws IOException {
+        ActionSchema.Actions a = ChatCompletionDecoder.decodeActions("""
+                {"plan":[
+                  {"navigation":{"dx":5},"until":"arrive"},
+                  {"mouse":{"left":"HOLD"},"until":"block_broken","ticks":80},
+                  {"navigation":{"dz":2}},
+                  {"macro":"collect_nearby_items"},
+                  {"chat":"wait"},
+                  {"chat":"bogus","until":"whenever","ticks":-5},
+                  "not a step"]}""");
+        var plan = a.plan();
+        assertEquals(6, plan.size());
+        assertEquals(ActionSchema.Until.ARRIVE, plan.get(0).until());
+        assertEquals(ActionSchema.Until.BLOCK_BROKEN, plan.get(1).until());
+        assertEquals(80, plan.get(1).ticks());
+        assertEquals(ActionSchema.Until.ARRIVE, plan.get(2).until());
+        assertEquals(ActionSchema.Until.DONE, plan.get(3).until());
+        assertEquals(ActionSchema.Until.TICKS, plan.get(4).until());
+        assertEquals(1, plan.get(4).ticks());
+        assertEquals(ActionSchema.Until.TICKS, plan.get(5).until());
+        assertEquals(1, plan.get(5).ticks());
+    }
+
+    @Test
+    void planIsCappedAtMaxSteps() throws IOException {
+        StringBuilder sb = new StringBuilder("{\"plan\":[");
+        for (int i = 0; i < 40; i++) sb.append(i == 0 ? "" : ",").append("{\"until\":\"ticks\",\"ticks\":").append(i + 1).append('}');
+        ActionSchema.Actions a = ChatCompletionDecoder.decodeActions(sb.append("],\"chat\":\"after\"}").toString());
+        assertEquals(ChatCompletionDecoder.MAX_PLAN_STEPS, a.plan().size());
+        assertEquals(Optional.of("after"), a.chat().message());
+    }
+
+    @Test
+    void macroAsObjectOrName() throws IOException {
+        ActionSchema.Macro m = ChatCompletionDecoder.decodeActions(
+                "{\"macro\":{\"name\":\"follow_entity\",\"target\":{\"entityName\":\"Alex\"},\"distance\":3,\"ticks\":400}}").macro().orElseThrow();
+        assertEquals(ActionSchema.MacroKind.FOLLOW_ENTITY, m.kind());
+        assertEquals(Optional.of("Alex"), m.target().orElseThrow().entityName());
+        assertEquals(3, m.distance());
+        assertEquals(400, m.ticks());
+        assertEquals(ActionSchema.MacroKind.MINE_TARGET_UNTIL_BROKEN,
+                ChatCompletionDecoder.decodeActions("{\"macro\":\"MINE_TARGET_UNTIL_BROKEN\"}").macro().orElseThrow().kind());
+        assertTrue(ChatCompletionDecoder.decodeActions("{\"macro\":{\"name\":\"dance\"}}").macro().isEmpty());
+    }
+
+    @Test
+    void memberDecodesOnlyStreamableKeys() {
+        assertEquals(Optional.of(4), ChatCompletionDecoder.decodeMember("navigation", "{\"dx\":4}").navigation().dx());
+        assertEquals(ActionSchema.PressType.TAP, ChatCompletionDecoder.decodeMember("mouse", "\"tap\"").mouse().left());
+        assertEquals(1, ChatCompletionDecoder.decodeMember("plan", "[{\"chat\":\"x\"}]").plan().size());
+        assertNull(ChatCompletionDecoder.decodeMember("chat", "\"hi\""));
+        assertNull(ChatCompletionDecoder.decodeMember("navigation", "{\"dx\":"));
+    }
+}
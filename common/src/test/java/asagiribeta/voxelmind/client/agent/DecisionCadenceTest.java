@@ -0,0 +1,86 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.config.Config;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionCadenceTest {
+    private static final Config BOUNDS = Config.builder().setDecisionIntervalMinTicks(2).setDecisionIntervalMaxTicks(100).build();
+
+    private static DecisionCadence cadence(int interval) { return new DecisionCadence(interval, () -> BOUNDS); }
+
+    @Test
+    void healthyRepliesShortenTheIntervalByOneTick() {
+        DecisionCadence c = cadence(20);
+        c.record(10, false, 1);
+        assertEquals(19, c.intervalTicks());
+        c.record(10, false, 1);
+        assertEquals(18, c.intervalTicks());
+    }
+
+    @Test
+    void intervalNeverDropsBelowLatencyPerPipelineSlot() {
+        DecisionCadence c = cadence(40);
+        // 1 s replies are 20 ticks; with two requests in flight a decision may start every 10 ticks
+        for (int i = 0; i < 100; i++) c.record(1000, false, 2);
+        assertEquals(10, c.intervalTicks());
+        for (int i = 0; i < 100; i++) c.record(1000, false, 1);
+        assertEquals(20, c.intervalTicks());
+    }
+
+    @Test
+    void timeoutDoublesTheInterval() {
+        DecisionCadence c = cadence(10);
+        c.record(100, true, 1);
+        assertEquals(20, c.intervalTicks());
+    }
+
+    @Test
+    void outlierAfterEnoughSamplesDoublesTheInterval() {
+        DecisionCadence c = cadence(10);
+        for (int i = 0; i < 8; i++) c.record(100, false, 1);
+        int before = c.intervalTicks();
+        c.record(1000, false, 1);
+        assertEquals(Math.min(100, before * 2), c.intervalTicks());
+    }
+
+    @Test
+    void intervalStaysWithinConfiguredBounds() {
+        DecisionCadence c = cadence(80);
+        for (int i = 0; i < 5; i++) c.record(100, true, 1);
+        assertEquals(100, c.intervalTicks());
+        DecisionCadence fast = cadence(3);
+        for (int i = 0; i < 10; i++) fast.record(1, false, 4);
+        assertEquals(2, fast.intervalTicks());
+    }
+
+    @Test
+    void timeoutUsesDefaultUntilEnoughSamplesThenScalesP99() {
+        DecisionCadence c = cadence(5);
+        assertEquals(10_000, c.timeoutMillis());
+        assertEquals(-1, c.latencyPercentile(0.95));
+        for (int i = 0; i < 8; i++) c.record(2000, false, 1);
+        assertEquals(3000, c.timeoutMillis());
+        assertEquals(2000, c.latencyPercentile(0.95));
+    }
+
+    @Test
+    void timeoutIsBounded() {
+        DecisionCadence c = cadence(5);
+        for (int i = 0; i < 8; i++) c.record(100, false, 1);
+        assertEquals(2_000, c.timeoutMillis());
+        for (int i = 0; i < 64; i++) c.record(60_000, false, 1);
+        assertEquals(30_000, c.timeoutMillis());
+    }
+
+    @Test
+    void reseedRestartsTheIntervalButKeepsLatencyHistory() {
+        DecisionCadence c = cadence(5);
+        for (int i = 0; i < 8; i++) c.record(2000, true, 1);
+        assertEquals(100, c.intervalTicks());
+        c.reseed(7);
+        assertEquals(7, c.intervalTicks());
+        assertEquals(3000, c.timeoutMillis());
+    }
+}
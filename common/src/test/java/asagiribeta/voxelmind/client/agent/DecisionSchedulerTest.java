@@ -0,0 +1,75 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.client.agent.DecisionScheduler.Trigger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionSchedulerTest {
+    private final DecisionScheduler scheduler = new DecisionScheduler();
+
+    @Test
+    void emptyQueue() {
+        assertFalse(scheduler.hasQueued());
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    void highestPriorityIsServedAndSatisfiesTheRest() {
+        scheduler.request(Trigger.PERIODIC);
+        scheduler.request(Trigger.OTHER_CHAT);
+        scheduler.request(Trigger.USER_CHAT);
+        assertTrue(scheduler.hasQueued());
+        assertEquals(Trigger.USER_CHAT, scheduler.poll());
+        assertFalse(scheduler.hasQueued(), "one decision sees the latest state, so it answers every queued trigger");
+        assertTrue(scheduler.stats().endsWith("merged=2/1"), scheduler.stats());
+    }
+
+    @Test
+    void reflexOutranksUserChat() {
+        scheduler.request(Trigger.USER_CHAT);
+        scheduler.request(Trigger.REFLEX);
+        assertEquals(Trigger.REFLEX, scheduler.poll());
+    }
+
+    @Test
+    void priorityFollowsDeclarationOrder() {
+        Trigger[] all = Trigger.values();
+        for (int i = all.length - 1; i >= 0; i--) {
+            for (int j = i; j < all.length; j++) scheduler.request(all[j]);
+            assertEquals(all[i], scheduler.poll());
+        }
+    }
+
+    @Test
+    void repeatsMergeButPeriodicRepeatsAreNotCounted() {
+        scheduler.request(Trigger.USER_CHAT);
+        scheduler.request(Trigger.USER_CHAT);
+        scheduler.request(Trigger.PERIODIC);
+        scheduler.request(Trigger.PERIODIC);
+        scheduler.request(Trigger.PERIODIC);
+        assertEquals(Trigger.USER_CHAT, scheduler.poll());
+        // one repeated USER_CHAT plus the PERIODIC folded into the dispatch
+        assertTrue(scheduler.stats().endsWith("merged=2/1"), scheduler.stats());
+    }
+
+    @Test
+    void clearDropsEverything() {
+        scheduler.request(Trigger.TASK_ENDED);
+        scheduler.request(Trigger.OTHER_CHAT);
+        scheduler.clear();
+        assertFalse(scheduler.hasQueued());
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    void waitTimeIsMeasuredFromTheOldestTrigger() throws InterruptedException {
+        scheduler.request(Trigger.PERIODIC);
+        Thread.sleep(30);
+        scheduler.request(Trigger.USER_CHAT);
+        scheduler.poll();
+        String stats = scheduler.stats();
+        long max = Long.parseLong(stats.substring(stats.indexOf("max=") + 4, stats.indexOf("ms,")));
+        assertTrue(max >= 25, stats);
+    }
+}
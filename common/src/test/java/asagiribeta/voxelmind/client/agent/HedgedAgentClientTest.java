@@ -0,0 +1,121 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedAgentClientTest {
+    private static final AgentClient.GameContext CONTEXT = new AgentClient.GameContext("overworld", 0, 64, 0, 0f, 0f, "plains", "");
+    private static final EncodedFrame FRAME = new EncodedFrame(new byte[1], "image/png", 1, 1, 0L);
+    private static final Executor DIRECT = Runnable::run;
+
+    /** Hands out futures the test completes by hand, one per attempt. */
+    private static final class ManualAgent implements AgentClient {
+        final List<CompletableFuture<ActionSchema.Actions>> attempts = new CopyOnWriteArrayList<>();
+
+        @Override
+        public ActionSchema.Actions decide(EncodedFrame screenshot, GameContext context, Optional<String> userGoal) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public CompletableFuture<ActionSchema.Actions> decideAsync(EncodedFrame screenshot, GameContext context, Optional<String> userGoal,
+                                                                   Consumer<ActionSchema.Actions> onPartial, Executor executor) {
+            CompletableFuture<ActionSchema.Actions> f = new CompletableFuture<>();
+            attempts.add(f);
+            return f;
+        }
+
+        CompletableFuture<ActionSchema.Actions> awaitAttempt(int i) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (attempts.size() <= i) {
+                if (System.nanoTime() > deadline) fail("attempt " + i + " was never launched");
+                Thread.sleep(1);
+            }
+            return attempts.get(i);
+        }
+    }
+
+    private static ActionSchema.Actions reply(String chat) {
+        return new ActionSchema.Actions(new ActionSchema.Chat(Optional.of(chat)), ActionSchema.Navigation.none(), ActionSchema.View.none(), ActionSchema.Mouse.none(), Optional.empty());
+    }
+
+    @Test
+    void noHistoryMeansNoHedge() throws Exception {
+        ManualAgent agent = new ManualAgent();
+        var hedged = new HedgedAgentClient(agent, () -> -1, () -> 95);
+        var result = hedged.decideAsync(FRAME, CONTEXT, Optional.empty(), null, DIRECT);
+        agent.awaitAttempt(0).complete(reply("a"));
+        assertEquals("a", result.get(1, TimeUnit.SECONDS).chat().message().orElseThrow());
+        Thread.sleep(20);
+        assertEquals(1, agent.attempts.size());
+    }
+
+    @Test
+    void failedPrimaryDoesNotCancelTheHedge() throws Exception {
+        ManualAgent agent = new ManualAgent();
+        var hedged = new HedgedAgentClient(agent, () -> 5, () -> 50);
+        var result = hedged.decideAsync(FRAME, CONTEXT, Optional.empty(), null, DIRECT);
+        var primary = agent.awaitAttempt(0);
+        var hedge = agent.awaitAttempt(1);
+        primary.completeExceptionally(new AgentReplyException("HTTP 500"));
+        assertFalse(result.isDone(), "a failed attempt must not end the race while the hedge may answer");
+        assertFalse(hedge.isCancelled());
+        hedge.complete(reply("from hedge"));
+        assertEquals("from hedge", result.get(1, TimeUnit.SECONDS).chat().message().orElseThrow());
+        assertTrue(hedged.connectionStats().endsWith("won=1"), hedged.connectionStats());
+    }
+
+    @Test
+    void bothFailingFailsTheDecision() throws Exception {
+        ManualAgent agent = new ManualAgent();
+        var hedged = new HedgedAgentClient(agent, () -> 5, () -> 50);
+        var result = hedged.decideAsync(FRAME, CONTEXT, Optional.empty(), null, DIRECT);
+        agent.awaitAttempt(0);
+        agent.awaitAttempt(1).completeExceptionally(new AgentReplyException("HTTP 502"));
+        assertFalse(result.isDone());
+        agent.attempts.get(0).completeExceptionally(new AgentReplyException("HTTP 500"));
+        assertTrue(result.isCompletedExceptionally());
+        assertTrue(hedged.connectionStats().endsWith("won=0"), hedged.connectionStats());
+    }
+
+    @Test
+    void firstSuccessCancelsTheOther() throws Exception {
+        ManualAgent agent = new ManualAgent();
+        var hedged = new HedgedAgentClient(agent, () -> 5, () -> 50);
+        var result = hedged.decideAsync(FRAME, CONTEXT, Optional.empty(), null, DIRECT);
+        var primary = agent.awaitAttempt(0);
+        var hedge = agent.awaitAttempt(1);
+        primary.complete(reply("primary"));
+        assertEquals("primary", result.get(1, TimeUnit.SECONDS).chat().message().orElseThrow());
+        assertTrue(hedge.isCancelled());
+    }
+
+    @Test
+    void primaryFailingBeforeTheHedgeDelayFailsAtOnce() throws Exception {
+        ManualAgent agent = new ManualAgent();
+        var hedged = new HedgedAgentClient(agent, () -> 10_000, () -> 50);
+        var result = hedged.decideAsync(FRAME, CONTEXT, Optional.empty(), null, DIRECT);
+        agent.awaitAttempt(0).completeExceptionally(new AgentReplyException("HTTP 500"));
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    void cancellingTheDecisionCancelsEveryAttempt() throws Exception {
+        ManualAgent agent = new ManualAgent();
+        var hedged = new HedgedAgentClient(agent, () -> 5, () -> 50);
+        var result = hedged.decideAsync(FRAME, CONTEXT, Optional.empty(), null, DIRECT);
+        var primary = agent.awaitAttempt(0);
+        var hedge = agent.awaitAttempt(1);
+        result.cancel(true);
+        assertTrue(primary.isCancelled());
+        assertTrue(hedge.isCancelled());
+    }
+}
@@ -0,0 +1,119 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+import asagiribeta.voxelmind.config.Config;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Warm-up, keep-alive and connection reuse statistics of {@link HttpAgentClient} against a local stand-in server. */
+class HttpAgentClientConnectionTest {
+    private static final AgentClient.GameContext CONTEXT = new AgentClient.GameContext("minecraft:overworld", 0.5, 64, 0.5, 0f, 0f, "minecraft:plains", "");
+    private static final EncodedFrame FRAME = new EncodedFrame(new byte[] {1, 2, 3, 4}, "image/png", 1, 1, 0L);
+    // Long enough for a loopback exchange to reach the server, short enough to keep the suite fast
+    private static final long SETTLE_MS = 300;
+
+    private StubAgentServer server;
+
+    @BeforeEach
+    void start() throws Exception { server = new StubAgentServer(); }
+
+    @AfterEach
+    void stop() { server.close(); }
+
+    private HttpAgentClient client(int keepAliveSeconds) {
+        Config cfg = Config.builder().setKeepAliveSeconds(keepAliveSeconds).build();
+        return new HttpAgentClient(server.url(), "test-model", "", () -> 5000, null, () -> cfg);
+    }
+
+    private static ActionSchema.Actions decide(HttpAgentClient c) {
+        return c.decideAsync(FRAME, CONTEXT, Optional.empty(), null, Runnable::run).join();
+    }
+
+    @Test
+    void warmUpSendsExactlyOneHead() throws Exception {
+        HttpAgentClient c = client(20);
+        c.warmUp();
+        StubAgentServer.Hit hit = server.next(2000);
+        assertNotNull(hit, "warm-up never reached the server");
+        assertEquals("HEAD", hit.method());
+        assertNull(server.next(SETTLE_MS), "warm-up sent more than one request");
+        assertTrue(c.connectionStats().contains("pings=1"), c.connectionStats());
+    }
+
+    @Test
+    void warmUpMakesTheFirstDecisionWarm() throws Exception {
+        HttpAgentClient c = client(20);
+        c.warmUp();
+        assertEquals("HEAD", server.next(2000).method());
+        Thread.sleep(SETTLE_MS); // let the ping complete and stamp the exchange time
+        assertEquals("hi", decide(c).chat().message().orElse(null));
+        String stats = c.connectionStats();
+        assertTrue(stats.contains("warm=1 "), stats);
+        assertTrue(stats.contains("cold=0 "), stats);
+    }
+
+    @Test
+    void backToBackRequestsAreCountedColdThenWarm() throws Exception {
+        HttpAgentClient c = client(20);
+        decide(c);
+        decide(c);
+        String stats = c.connectionStats();
+        assertTrue(stats.contains("cold=1 "), stats);
+        assertTrue(stats.contains("warm=1 "), stats);
+        assertFalse(stats.contains("(avg n/a)"), stats);
+        assertTrue(stats.contains("pings=0"), stats);
+        // And the second request really went over the pooled connection
+        StubAgentServer.Hit first = server.next(2000), second = server.next(2000);
+        assertEquals("POST", first.method());
+        assertEquals("POST", second.method());
+        assertEquals(first.remotePort(), second.remotePort());
+    }
+
+    @Test
+    void keepAlivePingsOnlyAfterTheIdleInterval() throws Exception {
+        HttpAgentClient c = client(1);
+        decide(c);
+        assertEquals(1, server.drain("POST"));
+        // Fresh connection: nothing to keep alive yet
+        c.maintainConnection();
+        assertNull(server.next(SETTLE_MS), "pinged a connection that was just used");
+        Thread.sleep(1000);
+        c.maintainConnection();
+        StubAgentServer.Hit hit = server.next(2000);
+        assertNotNull(hit, "idle connection was not pinged");
+        assertEquals("HEAD", hit.method());
+        Thread.sleep(SETTLE_MS);
+        // The ping itself counts as traffic, so the next one waits for another full interval
+        c.maintainConnection();
+        assertNull(server.next(SETTLE_MS));
+    }
+
+    @Test
+    void keepAliveZeroDisablesPings() throws Exception {
+        HttpAgentClient c = client(0);
+        c.maintainConnection();
+        decide(c);
+        assertEquals(1, server.drain("POST"));
+        Thread.sleep(SETTLE_MS);
+        for (int i = 0; i < 20; i++) c.maintainConnection();
+        assertNull(server.next(SETTLE_MS), "keep_alive_seconds=0 still pinged");
+        assertTrue(c.connectionStats().contains("pings=0"), c.connectionStats());
+    }
+
+    @Test
+    void closeShutsTheClientDown() throws Exception {
+        HttpAgentClient c = client(20);
+        decide(c);
+        assertEquals(1, server.drain("POST"));
+        c.close();
+        assertThrows(CompletionException.class, () -> decide(c));
+        c.warmUp();
+        assertNull(server.next(SETTLE_MS), "a closed client still reached the server");
+    }
+}
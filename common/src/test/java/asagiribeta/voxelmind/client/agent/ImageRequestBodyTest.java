@@ -0,0 +1,91 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageRequestBodyTest {
+    private static final AgentClient.GameContext CONTEXT = new AgentClient.GameContext("minecraft:overworld", 1.25, 64, -3.5, 90f, 10f, "minecraft:plains", "");
+
+    private static EncodedFrame frame(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) bytes[i] = (byte) (i * 31 + 7);
+        return new EncodedFrame(bytes, "image/png", 4, 4, 0L);
+    }
+
+    private static HttpAgentClient client() { return new HttpAgentClient("http://127.0.0.1:1/v1", "test-model", "", () -> 1000); }
+
+    /** Drains the publisher the way HttpClient would and checks the advertised Content-Length. */
+    private static String drain(HttpRequest.BodyPublisher publisher) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override public void onSubscribe(Flow.Subscription s) { s.request(Long.MAX_VALUE); }
+            @Override public void onNext(ByteBuffer b) { byte[] a = new byte[b.remaining()]; b.get(a); out.write(a, 0, a.length); }
+            @Override public void onError(Throwable t) { done.completeExceptionally(t); }
+            @Override public void onComplete() { done.complete(null); }
+        });
+        done.get();
+        assertEquals(publisher.contentLength(), out.size(), "Content-Length");
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static JsonArray messages(String body) { return JsonParser.parseString(body).getAsJsonObject().getAsJsonArray("messages"); }
+
+    private static String imageUrl(JsonArray messages) {
+        JsonObject user = messages.get(messages.size() - 1).getAsJsonObject();
+        JsonArray content = user.getAsJsonArray("content");
+        return content.get(1).getAsJsonObject().getAsJsonObject("image_url").get("url").getAsString();
+    }
+
+    @Test
+    void imageIsSplicedIntoTheLastMessage() throws Exception {
+        EncodedFrame f = frame(10_000);
+        String body = drain(client().requestBody(f, CONTEXT, Optional.empty(), false));
+        JsonArray messages = messages(body);
+        assertEquals(2, messages.size());
+        assertEquals("data:image/png;base64," + Base64.getEncoder().encodeToString(f.bytes()), imageUrl(messages));
+        assertFalse(JsonParser.parseString(body).getAsJsonObject().has("stream"));
+    }
+
+    @Test
+    void conversationContainingTheOldPlaceholderIsLeftAlone() throws Exception {
+        String convo = "Steve: what does @@VOXELMIND_IMAGE@@ do? \"quoted\" @@VOXELMIND_IMAGE@@";
+        EncodedFrame f = frame(1);
+        String body = drain(client().requestBody(f, CONTEXT, Optional.of(convo), true));
+        JsonObject root = JsonParser.parseString(body).getAsJsonObject();
+        JsonArray messages = root.getAsJsonArray("messages");
+        assertEquals(3, messages.size());
+        assertEquals(convo, messages.get(1).getAsJsonObject().get("content").getAsString());
+        assertEquals("data:image/png;base64," + Base64.getEncoder().encodeToString(f.bytes()), imageUrl(messages));
+        assertTrue(root.get("stream").getAsBoolean());
+    }
+
+    @Test
+    void bodyIsReplayable() throws Exception {
+        HttpRequest.BodyPublisher publisher = client().requestBody(frame(3 * 4096 + 2), CONTEXT, Optional.of("hi"), false);
+        assertEquals(drain(publisher), drain(publisher));
+    }
+
+    @Test
+    void headStaysByteStableAcrossFrames() throws Exception {
+        HttpAgentClient client = client();
+        String a = drain(client.requestBody(frame(10), CONTEXT, Optional.of("hello"), false));
+        String b = drain(client.requestBody(frame(20), CONTEXT, Optional.of("hello"), false));
+        int imageAt = a.indexOf("data:image/png;base64,");
+        assertEquals(a.substring(0, imageAt), b.substring(0, imageAt));
+    }
+}
@@ -0,0 +1,110 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.config.Config;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private static RateLimiter limiter(int rpm, int tpm) {
+        Config cfg = Config.builder().setRateLimitRequestsPerMinute(rpm).setRateLimitTokensPerMinute(tpm).build();
+        return new RateLimiter(() -> cfg);
+    }
+
+    private static HttpHeaders headers(String... kv) {
+        Map<String, List<String>> map = new java.util.HashMap<>();
+        for (int i = 0; i < kv.length; i += 2) map.put(kv[i], List.of(kv[i + 1]));
+        return HttpHeaders.of(map, (k, v) -> true);
+    }
+
+    @Test
+    void unlimitedByDefault() {
+        RateLimiter l = limiter(0, 0);
+        for (int i = 0; i < 1000; i++) assertTrue(l.tryAcquire() >= 0);
+        assertEquals(0, l.waitMillis());
+    }
+
+    @Test
+    void requestBucketHoldsOnceEmpty() {
+        RateLimiter l = limiter(2, 0);
+        assertTrue(l.tryAcquire() >= 0);
+        assertTrue(l.tryAcquire() >= 0);
+        assertEquals(-1, l.tryAcquire());
+        // Roughly half a minute until one request has refilled at 2/min
+        long wait = l.waitMillis();
+        assertTrue(wait > 25_000 && wait <= 30_000, "wait=" + wait);
+    }
+
+    @Test
+    void refundReturnsTheTokenReservation() {
+        RateLimiter l = limiter(0, 2000);
+        long a = l.tryAcquire(), b = l.tryAcquire();
+        assertEquals(1000, a);
+        assertEquals(1000, b);
+        assertEquals(-1, l.tryAcquire());
+        l.refund(b);
+        assertEquals(0, l.waitMillis());
+        assertEquals(1000, l.tryAcquire());
+    }
+
+    @Test
+    void refundDoesNotReturnTheRequest() {
+        RateLimiter l = limiter(1, 0);
+        long r = l.tryAcquire();
+        l.refund(r);
+        assertEquals(-1, l.tryAcquire());
+    }
+
+    @Test
+    void usageSettlesTheDifference() {
+        RateLimiter l = limiter(0, 2000);
+        long r = l.tryAcquire();
+        // Used half of the estimate: the other half comes back, and the estimate moves towards the reported usage
+        l.onUsage(r, 500);
+        long next = l.tryAcquire();
+        assertEquals(900, next);
+        assertTrue(l.waitMillis() > 0, "600 tokens left for a 900 estimate");
+    }
+
+    @Test
+    void replyWithoutUsageKeepsTheEstimate() {
+        RateLimiter l = limiter(0, 1000);
+        long r = l.tryAcquire();
+        l.onUsage(r, 0);
+        assertEquals(-1, l.tryAcquire());
+    }
+
+    @Test
+    void retryAfterBlocks() {
+        RateLimiter l = limiter(0, 0);
+        l.onResponse(200, headers("retry-after", "2"));
+        long wait = l.waitMillis();
+        assertTrue(wait > 1000 && wait <= 2000, "wait=" + wait);
+        assertEquals(-1, l.tryAcquire());
+    }
+
+    @Test
+    void exhaustedRemainingWaitsForReset() {
+        RateLimiter l = limiter(0, 0);
+        l.onResponse(200, headers("x-ratelimit-remaining-tokens", "0", "x-ratelimit-reset-tokens", "6m0s"));
+        long wait = l.waitMillis();
+        assertTrue(wait > 350_000 && wait <= 360_000, "wait=" + wait);
+    }
+
+    @Test
+    void bare429BacksOffExponentially() {
+        RateLimiter l = limiter(0, 0);
+        l.onResponse(429, headers());
+        long first = l.waitMillis();
+        assertTrue(first >= 1 && first <= 1000, "first=" + first);
+        l.onResponse(429, headers());
+        l.onResponse(429, headers());
+        long third = l.waitMillis();
+        assertTrue(third >= 1000 && third <= 4000, "third=" + third);
+        assertTrue(l.stats().contains("429s=3"), l.stats());
+    }
+}
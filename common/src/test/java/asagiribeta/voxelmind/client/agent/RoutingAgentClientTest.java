@@ -0,0 +1,118 @@
+package asagiribeta.voxelmind.client.agent;
+
+import asagiribeta.voxelmind.client.capture.EncodedFrame;
+import asagiribeta.voxelmind.config.Config;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Failover of {@link RoutingAgentClient} between two local stand-in endpoints, one of which has an outage. */
+class RoutingAgentClientTest {
+    private static final AgentClient.GameContext CONTEXT = new AgentClient.GameContext("minecraft:overworld", 0.5, 64, 0.5, 0f, 0f, "minecraft:plains", "");
+    private static final EncodedFrame FRAME = new EncodedFrame(new byte[] {1, 2, 3, 4}, "image/png", 1, 1, 0L);
+    // Past the first probe cooldown (10 s) without waiting for it
+    private static final long AFTER_COOLDOWN = 11_000_000_000L;
+
+    private StubAgentServer flaky, steady;
+    private RoutingAgentClient client;
+
+    @BeforeEach
+    void start() throws Exception {
+        flaky = new StubAgentServer();
+        steady = new StubAgentServer();
+        // keep_alive 0 so the only HEADs are probes. The weights make every pick go to flaky while its circuit is closed
+        Config cfg = Config.builder().setKeepAliveSeconds(0).build();
+        client = new RoutingAgentClient(List.of(
+                new Config.Endpoint("flaky", flaky.url(), "", "", 1_000_000),
+                new Config.Endpoint("steady", steady.url(), "", "", 1)), cfg, () -> 5000, () -> cfg);
+    }
+
+    @AfterEach
+    void stop() {
+        flaky.close();
+        steady.close();
+    }
+
+    /** True if the decision got a reply, false if it failed. */
+    private boolean decide() {
+        try {
+            return client.decideAsync(FRAME, CONTEXT, Optional.empty(), null, Runnable::run).join().chat().message().isPresent();
+        } catch (CompletionException e) {
+            return false;
+        }
+    }
+
+    private boolean flakyOpen() { return client.connectionStats().startsWith("flaky OPEN"); }
+
+    private static void await(BooleanSupplier condition, String what) throws InterruptedException {
+        for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) Thread.sleep(10);
+        assertTrue(condition.getAsBoolean(), what);
+    }
+
+    /** Three failed decisions on flaky open its circuit. */
+    private void tripFlaky() {
+        flaky.failWith(503);
+        for (int i = 0; i < 3; i++) assertFalse(decide(), "decision " + i + " should have hit the outage");
+        assertTrue(flakyOpen(), client.connectionStats());
+        assertEquals(3, flaky.drain("POST"));
+        assertEquals(0, steady.drain("POST"));
+    }
+
+    @Test
+    void decisionsMoveToTheHealthyEndpointAfterThreeFailures() {
+        tripFlaky();
+        for (int i = 0; i < 10; i++) assertTrue(decide(), "decision " + i + " after failover");
+        assertEquals(0, flaky.drain("POST"));
+        assertEquals(10, steady.drain("POST"));
+    }
+
+    @Test
+    void openEndpointIsProbedAndStaysOpenWhileDown() throws Exception {
+        tripFlaky();
+        // Within the cooldown nothing is sent to it
+        client.maintainConnection();
+        assertNull(flaky.next(200));
+        client.maintainConnection(System.nanoTime() + AFTER_COOLDOWN);
+        StubAgentServer.Hit probe = flaky.next(2000);
+        assertNotNull(probe, "open endpoint was not probed");
+        assertEquals("HEAD", probe.method());
+        Thread.sleep(200); // let the 503 reach the breaker
+        assertTrue(flakyOpen(), client.connectionStats());
+        assertNull(steady.next(0), "the healthy endpoint was probed");
+        assertTrue(decide());
+        assertEquals(0, flaky.drain("POST"));
+    }
+
+    @Test
+    void endpointRejoinsAfterRecovery() throws Exception {
+        tripFlaky();
+        flaky.failWith(0);
+        client.maintainConnection(System.nanoTime() + AFTER_COOLDOWN);
+        assertEquals("HEAD", flaky.next(2000).method());
+        await(() -> !flakyOpen(), "successful probe did not close the circuit: " + client.connectionStats());
+        for (int i = 0; i < 5; i++) assertTrue(decide());
+        assertEquals(5, flaky.drain("POST"));
+        assertEquals(0, steady.drain("POST"));
+    }
+
+    @Test
+    void oneFailureOnProbationReopens() throws Exception {
+        tripFlaky();
+        flaky.failWith(0);
+        client.maintainConnection(System.nanoTime() + AFTER_COOLDOWN);
+        assertEquals("HEAD", flaky.next(2000).method());
+        await(() -> !flakyOpen(), "successful probe did not close the circuit");
+        flaky.failWith(503);
+        assertFalse(decide());
+        assertTrue(flakyOpen(), client.connectionStats());
+        assertTrue(decide());
+        assertEquals(1, steady.drain("POST"));
+    }
+}
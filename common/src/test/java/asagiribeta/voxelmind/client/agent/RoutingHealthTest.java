@@ -0,0 +1,82 @@
+package asagiribeta.voxelmind.client.agent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Circuit breaker of {@link RoutingAgentClient}: trips, probes, probation and scoring. */
+class RoutingHealthTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    private static RoutingAgentClient.Health health() { return new RoutingAgentClient.Health("a", 1.0, () -> false); }
+
+    private static void fail(RoutingAgentClient.Health h, int n) { for (int i = 0; i < n; i++) h.onExchange(false, false, 100); }
+
+    @Test
+    void opensAfterThreeConsecutiveFailures() {
+        RoutingAgentClient.Health h = health();
+        fail(h, 2);
+        assertTrue(h.closed());
+        fail(h, 1);
+        assertFalse(h.closed());
+        assertTrue(h.stats().contains("OPEN"), h.stats());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        RoutingAgentClient.Health h = health();
+        fail(h, 2);
+        h.onExchange(true, false, 100);
+        fail(h, 2);
+        assertTrue(h.closed());
+    }
+
+    @Test
+    void openCircuitIsProbedAfterTheCooldown() {
+        RoutingAgentClient.Health h = health();
+        long t0 = System.nanoTime();
+        fail(h, 3);
+        assertFalse(h.probeDue(t0 + SECOND));
+        long due = t0 + 11 * SECOND;
+        assertTrue(h.probeDue(due));
+        // One probe per cooldown
+        assertFalse(h.probeDue(due + SECOND));
+        h.probeResult(false);
+        assertFalse(h.closed());
+    }
+
+    @Test
+    void successfulProbeClosesOnProbation() {
+        RoutingAgentClient.Health h = health();
+        fail(h, 3);
+        h.probeResult(true);
+        assertTrue(h.closed());
+        assertEquals(Long.MAX_VALUE, h.openedAtNanos());
+        // A single failure on probation reopens, with a doubled cooldown
+        long t0 = System.nanoTime();
+        fail(h, 1);
+        assertFalse(h.closed());
+        assertFalse(h.probeDue(t0 + 15 * SECOND));
+        assertTrue(h.probeDue(t0 + 21 * SECOND));
+    }
+
+    @Test
+    void probeResultIgnoredWhileClosed() {
+        RoutingAgentClient.Health h = health();
+        h.probeResult(true);
+        assertTrue(h.closed());
+        assertFalse(h.probeDue(System.nanoTime() + 3600 * SECOND));
+    }
+
+    @Test
+    void fasterAndMoreReliableEndpointsScoreHigher() {
+        RoutingAgentClient.Health fast = health(), slow = health(), flaky = health();
+        // Unmeasured endpoints count as one second
+        assertEquals(1.0 / 1000, fast.score(), 1e-12);
+        for (int i = 0; i < 10; i++) { fast.onExchange(true, false, 200); slow.onExchange(true, false, 2000); flaky.onExchange(true, false, 200); }
+        flaky.onExchange(false, false, 200);
+        assertTrue(fast.score() > slow.score());
+        assertTrue(fast.score() > flaky.score());
+        assertTrue(new RoutingAgentClient.Health("w", 3.0, () -> false).score() > health().score());
+    }
+}
@@ -0,0 +1,68 @@
+package asagiribeta.voxelmind.client.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingActionParserTest {
+    private final List<String> members = new ArrayList<>();
+    private final StreamingActionParser parser = new StreamingActionParser((k, v) -> members.add(k + "=" + v));
+
+    @Test
+    void membersAreReportedAsSoonAsTheyClose() {
+        parser.feed("```json\n{\"navigation\":{\"dx\":");
+        assertTrue(members.isEmpty());
+        parser.feed("3,\"dz\":-1}");
+        assertEquals(List.of("navigation={\"dx\":3,\"dz\":-1}"), members);
+        parser.feed(",\"mouse\":\"TAP\"");
+        assertEquals(1, members.size(), "a primitive is complete only at the following comma or brace");
+        parser.feed(",\"chat\":{\"message\":\"hi\"}}\n```");
+        assertEquals(List.of("navigation={\"dx\":3,\"dz\":-1}", "mouse=\"TAP\"", "chat={\"message\":\"hi\"}"), members);
+    }
+
+    @Test
+    void lastPrimitiveIsReportedAtTheClosingBrace() {
+        parser.feed("{\"mouse\":\"HOLD\"}");
+        assertEquals(List.of("mouse=\"HOLD\""), members);
+    }
+
+    @Test
+    void stringsMayContainStructuralCharacters() {
+        parser.feed("{\"chat\":\"a, b: {c} [d] \\\"q\\\" \\\\\",\"navigation\":{\"dx\":1}}");
+        assertEquals(List.of("chat=\"a, b: {c} [d] \\\"q\\\" \\\\\"", "navigation={\"dx\":1}"), members);
+    }
+
+    @Test
+    void nestedArraysAreOneMember() {
+        parser.feed("{\"plan\":[{\"navigation\":{\"dx\":1},\"until\":\"arrive\"},{\"chat\":\"x\"}],\"macro\":\"follow_entity\"}");
+        assertEquals(List.of("plan=[{\"navigation\":{\"dx\":1},\"until\":\"arrive\"},{\"chat\":\"x\"}]", "macro=\"follow_entity\""), members);
+    }
+
+    @Test
+    void splitAtEveryCharacterGivesTheSameResult() {
+        String json = "{\"navigation\":{\"dx\":2},\"chat\":\"he said \\\"go, now\\\"\",\"mouse\":{\"left\":\"TAP\"},\"n\":12}";
+        List<String> expected = new ArrayList<>();
+        new StreamingActionParser((k, v) -> expected.add(k + "=" + v)).feed(json);
+        for (char c : json.toCharArray()) parser.feed(String.valueOf(c));
+        assertEquals(4, expected.size());
+        assertEquals(expected, members);
+        assertEquals(json, parser.content());
+    }
+
+    @Test
+    void textAfterTheObjectIsIgnored() {
+        parser.feed("{\"mouse\":\"TAP\"} {\"chat\":\"second object\"}");
+        assertEquals(List.of("mouse=\"TAP\""), members);
+    }
+
+    @Test
+    void emptyAndNullDeltasAreIgnored() {
+        parser.feed(null);
+        parser.feed("");
+        assertEquals("", parser.content());
+        assertTrue(members.isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package asagiribeta.voxelmind.client.agent;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a chat.completions endpoint on 127.0.0.1 with an ephemeral port. Answers HEAD with an empty 200 and
+ * POST with a fixed reply, or both with an error status while one is set (an outage), and records every request it sees.
+ */
+final class StubAgentServer implements AutoCloseable {
+    static final String REPLY = "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"{\\\"chat\\\":{\\\"message\\\":\\\"hi\\\"}}\"}}],"
+            + "\"usage\":{\"prompt_tokens\":90,\"completion_tokens\":10,\"total_tokens\":100}}";
+
+    /** One request as the server saw it. */
+    record Hit(String method, int remotePort) {}
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final BlockingQueue<Hit> hits = new LinkedBlockingQueue<>();
+    private volatile int failWith = 0;
+
+    StubAgentServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url() { return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions"; }
+
+    /** Answers every request with {@code status} from now on; 0 restores normal replies. */
+    void failWith(int status) { failWith = status; }
+
+    /** Next request seen, or null if none arrives within {@code millis}. */
+    Hit next(long millis) throws InterruptedException { return hits.poll(millis, TimeUnit.MILLISECONDS); }
+
+    /** Drains and counts the recorded requests with the given method. */
+    int drain(String method) {
+        int n = 0;
+        for (Hit h; (h = hits.poll()) != null;) if (h.method().equals(method)) n++;
+        return n;
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            try (InputStream in = ex.getRequestBody()) { in.readAllBytes(); }
+            hits.add(new Hit(ex.getRequestMethod(), ex.getRemoteAddress().getPort()));
+            int status = failWith;
+            if (ex.getRequestMethod().equals("HEAD")) { ex.sendResponseHeaders(status != 0 ? status : 200, -1); return; }
+            byte[] body = (status != 0 ? "{\"error\":\"unavailable\"}" : REPLY).getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "application/json");
+            ex.sendResponseHeaders(status != 0 ? status : 200, body.length);
+            try (OutputStream out = ex.getResponseBody()) { out.write(body); }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,161 @@
+package asagiribeta.voxelmind.client.capture;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.glfw.GLFW;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the PBO ring against a synchronous glReadPixels of the same framebuffer. Needs an OpenGL 3.2 context from
+ * a hidden GLFW window; without a display (or LWJGL natives) every test is skipped. On a headless Linux CI runner,
+ * {@code xvfb-run} with Mesa's llvmpipe provides one.
+ */
+class PboReadbackTest {
+    private static boolean glfw = false;
+    private static long window = 0L;
+    private static String unavailable = null;
+    private int fbo = 0, color = 0, width = 0, height = 0;
+
+    @BeforeAll
+    static void createContext() {
+        try {
+            if (!(glfw = GLFW.glfwInit())) { unavailable = "GLFW could not initialise (no display?)"; return; }
+            GLFW.glfwDefaultWindowHints();
+            GLFW.glfwWindowHint(GLFW.GLFW_VISIBLE, GLFW.GLFW_FALSE);
+            GLFW.glfwWindowHint(GLFW.GLFW_CONTEXT_VERSION_MAJOR, 3);
+            GLFW.glfwWindowHint(GLFW.GLFW_CONTEXT_VERSION_MINOR, 2);
+            GLFW.glfwWindowHint(GLFW.GLFW_OPENGL_PROFILE, GLFW.GLFW_OPENGL_CORE_PROFILE);
+            GLFW.glfwWindowHint(GLFW.GLFW_OPENGL_FORWARD_COMPAT, GLFW.GLFW_TRUE);
+            window = GLFW.glfwCreateWindow(16, 16, "pbo-test", 0L, 0L);
+            if (window == 0L) { unavailable = "no OpenGL 3.2 context"; return; }
+            GLFW.glfwMakeContextCurrent(window);
+            GL.createCapabilities();
+        } catch (Throwable t) {
+            // Missing natives, or GLFW refusing to run off the main thread (macOS)
+            unavailable = "OpenGL unavailable: " + t;
+        }
+    }
+
+    @AfterAll
+    static void destroyContext() {
+        if (window != 0L) { GLFW.glfwDestroyWindow(window); window = 0L; }
+        if (glfw) { GLFW.glfwTerminate(); glfw = false; }
+    }
+
+    @BeforeEach
+    void requireContext() { assumeTrue(window != 0L, () -> unavailable); }
+
+    /** Binds an offscreen RGBA8 framebuffer of the given size (the hidden window's own framebuffer may not be backed). */
+    private void target(int w, int h) {
+        if (fbo == 0) { fbo = GL30.glGenFramebuffers(); color = GL30.glGenRenderbuffers(); }
+        GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, color);
+        GL30.glRenderbufferStorage(GL30.GL_RENDERBUFFER, GL11.GL_RGBA8, w, h);
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, fbo);
+        GL30.glFramebufferRenderbuffer(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, GL30.GL_RENDERBUFFER, color);
+        assertEquals(GL30.GL_FRAMEBUFFER_COMPLETE, GL30.glCheckFramebufferStatus(GL30.GL_FRAMEBUFFER));
+        GL11.glViewport(0, 0, w, h);
+        width = w;
+        height = h;
+    }
+
+    /** Fills the target with 8x8 cells whose colour depends on the cell and {@code seed}, so rows and frames differ. */
+    private void paint(int seed) {
+        GL11.glEnable(GL11.GL_SCISSOR_TEST);
+        for (int cy = 0; cy * 8 < height; cy++) for (int cx = 0; cx * 8 < width; cx++) {
+            int v = (cx * 73 + cy * 151 + seed * 29) & 0xFFFFFF;
+            GL11.glScissor(cx * 8, cy * 8, 8, 8);
+            GL11.glClearColor((v & 0xFF) / 255f, (v >> 8 & 0xFF) / 255f, (v >> 16 & 0xFF) / 255f, ((cx + cy) & 1) == 0 ? 1f : 0.5f);
+            GL11.glClear(GL11.GL_COLOR_BUFFER_BIT);
+        }
+        GL11.glDisable(GL11.GL_SCISSOR_TEST);
+    }
+
+    private byte[] readSync() {
+        ByteBuffer buf = BufferUtils.createByteBuffer(width * height * 4);
+        GL11.glReadPixels(0, 0, width, height, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, buf);
+        byte[] out = new byte[buf.remaining()];
+        buf.get(out);
+        return out;
+    }
+
+    private static byte[] copy(ByteBuffer mapped) {
+        if (mapped == null) return null;
+        byte[] out = new byte[mapped.remaining()];
+        mapped.get(out);
+        return out;
+    }
+
+    /** Polls like the client tick does until nothing is in flight. */
+    private static void drain(PboReadback pbo) {
+        for (int i = 0; i < 16 && pbo.inFlight() > 0; i++) { GL11.glFlush(); pbo.poll(); }
+        assertEquals(0, pbo.inFlight(), "readback never delivered");
+    }
+
+    @Test
+    void matchesSynchronousReadPixels() {
+        PboReadback pbo = new PboReadback();
+        assumeTrue(pbo.isSupported(), "context lacks PBOs / fence sync");
+        // One ring across sizes, so slots are reallocated; odd sizes catch row-length mistakes
+        int[][] sizes = { {64, 48}, {67, 41}, {1, 1}, {320, 180}, {67, 41} };
+        int seed = 0;
+        for (int[] s : sizes) {
+            target(s[0], s[1]);
+            paint(seed++);
+            byte[] expected = readSync();
+            List<byte[]> got = new ArrayList<>();
+            assertTrue(pbo.issue(width, height, b -> got.add(copy(b))));
+            drain(pbo);
+            assertEquals(1, got.size());
+            assertNotNull(got.get(0), "mapping failed");
+            assertArrayEquals(expected, got.get(0), "PBO readback differs at " + width + "x" + height);
+        }
+        pbo.dispose();
+    }
+
+    @Test
+    void ringDeliversEachFrameInIssueOrder() {
+        PboReadback pbo = new PboReadback();
+        assumeTrue(pbo.isSupported(), "context lacks PBOs / fence sync");
+        target(96, 54);
+        List<byte[]> expected = new ArrayList<>(), got = new ArrayList<>();
+        for (int frame = 0; frame < 3; frame++) {
+            paint(100 + frame);
+            expected.add(readSync());
+            assertTrue(pbo.issue(width, height, b -> got.add(copy(b))));
+        }
+        // Three slots: a fourth readback is refused until one is delivered
+        assertFalse(pbo.issue(width, height, b -> fail("issued into a full ring")));
+        drain(pbo);
+        assertEquals(3, got.size());
+        for (int i = 0; i < 3; i++) assertArrayEquals(expected.get(i), got.get(i), "frame " + i);
+        assertTrue(pbo.issue(width, height, b -> {}));
+        drain(pbo);
+        pbo.dispose();
+    }
+
+    @Test
+    void disposeHandsPendingReadbacksNull() {
+        PboReadback pbo = new PboReadback();
+        assumeTrue(pbo.isSupported(), "context lacks PBOs / fence sync");
+        target(32, 32);
+        paint(7);
+        List<ByteBuffer> got = new ArrayList<>();
+        assertTrue(pbo.issue(width, height, got::add));
+        pbo.dispose();
+        assertEquals(1, got.size());
+        assertNull(got.get(0));
+        assertEquals(0, pbo.inFlight());
+    }
+}
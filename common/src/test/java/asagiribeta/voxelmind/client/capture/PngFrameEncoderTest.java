@@ -0,0 +1,98 @@
+package asagiribeta.voxelmind.client.capture;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Round-trips frames through the PNG encoder and the JDK's decoder. */
+class PngFrameEncoderTest {
+    /** Blocky texture with noise and a gradient, like a game scene; alpha deliberately not opaque. */
+    private static int[] scene(int w, int h, long seed) {
+        Random rnd = new Random(seed);
+        int[] argb = new int[w * h];
+        for (int y = 0; y < h; y++) for (int x = 0; x < w; x++) {
+            int block = ((x >> 3) * 31 + (y >> 3) * 17) % 7;
+            int r = (block * 36 + rnd.nextInt(8)) & 0xFF, g = (x * 255 / Math.max(1, w - 1)) & 0xFF, b = (y * 7 + rnd.nextInt(4)) & 0xFF;
+            argb[y * w + x] = (rnd.nextInt(256) << 24) | r << 16 | g << 8 | b;
+        }
+        return argb;
+    }
+
+    private static void assertDecodesTo(byte[] png, int w, int h, int[] argb) throws IOException {
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(img, "ImageIO could not read the PNG");
+        assertEquals(w, img.getWidth());
+        assertEquals(h, img.getHeight());
+        assertFalse(img.getColorModel().hasAlpha(), "frames are written as opaque RGB");
+        for (int y = 0; y < h; y++) for (int x = 0; x < w; x++) {
+            int expected = argb[y * w + x] | 0xFF000000, actual = img.getRGB(x, y);
+            if (expected != actual) fail(String.format("pixel (%d,%d): expected %08x, was %08x", x, y, expected, actual));
+        }
+    }
+
+    @Test
+    void everyFilterRoundTrips() throws IOException {
+        int w = 97, h = 61;
+        int[] argb = scene(w, h, 1);
+        for (PngFrameEncoder.Filter f : PngFrameEncoder.Filter.values()) {
+            assertDecodesTo(new PngFrameEncoder(4, f).encode(w, h, argb), w, h, argb);
+        }
+    }
+
+    @Test
+    void everyLevelRoundTrips() throws IOException {
+        int w = 64, h = 48;
+        int[] argb = scene(w, h, 2);
+        for (int level = 0; level <= 9; level++) {
+            assertDecodesTo(new PngFrameEncoder(level, PngFrameEncoder.Filter.ADAPTIVE).encode(w, h, argb), w, h, argb);
+        }
+    }
+
+    @Test
+    void frameSpanningManyStripsRoundTrips() throws IOException {
+        // ~2.7 MB of scanlines, so the frame is deflated in parallel strips joined by a shared dictionary
+        int w = 1280, h = 720;
+        int[] argb = scene(w, h, 3);
+        assertDecodesTo(new PngFrameEncoder(6, PngFrameEncoder.Filter.PAETH).encode(w, h, argb), w, h, argb);
+    }
+
+    @Test
+    void encoderIsReusableAcrossSizes() throws IOException {
+        PngFrameEncoder enc = new PngFrameEncoder(4, PngFrameEncoder.Filter.ADAPTIVE);
+        int[][] sizes = { {320, 200}, {64, 64}, {1, 1}, {640, 360}, {320, 200} };
+        long seed = 10;
+        for (int[] s : sizes) {
+            int[] argb = scene(s[0], s[1], seed++);
+            assertDecodesTo(enc.encode(s[0], s[1], argb), s[0], s[1], argb);
+        }
+    }
+
+    @Test
+    void onlyTheFirstWidthTimesHeightPixelsAreUsed() throws IOException {
+        int w = 40, h = 30;
+        int[] pooled = scene(w, h + 25, 4); // pooled arrays may be longer than the frame
+        assertDecodesTo(new PngFrameEncoder(4, PngFrameEncoder.Filter.UP).encode(w, h, pooled), w, h, pooled);
+    }
+
+    @Test
+    void matchesTheImageIoBaseline() throws IOException {
+        int w = 200, h = 120;
+        int[] argb = scene(w, h, 5);
+        BufferedImage ours = ImageIO.read(new ByteArrayInputStream(new PngFrameEncoder(4, PngFrameEncoder.Filter.ADAPTIVE).encode(w, h, argb)));
+        BufferedImage base = ImageIO.read(new ByteArrayInputStream(new ImageIoPngEncoder().encode(w, h, argb)));
+        for (int y = 0; y < h; y++) for (int x = 0; x < w; x++) assertEquals(base.getRGB(x, y), ours.getRGB(x, y));
+    }
+
+    @Test
+    void filterNamesParseLeniently() {
+        assertEquals(PngFrameEncoder.Filter.PAETH, PngFrameEncoder.Filter.parse(" paeth "));
+        assertEquals(PngFrameEncoder.Filter.ADAPTIVE, PngFrameEncoder.Filter.parse("bogus"));
+        assertEquals(PngFrameEncoder.Filter.ADAPTIVE, PngFrameEncoder.Filter.parse(null));
+    }
+}
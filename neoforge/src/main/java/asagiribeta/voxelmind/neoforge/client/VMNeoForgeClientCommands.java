@@ -49,7 +49,7 @@ public final class VMNeoForgeClientCommands {
                     .then(Commands.literal("get").executes(ctx -> { Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_conversation_limit=" + Config.get().aiConversationLimit())); return 1; }))
                     .then(Commands.literal("set")
                         .then(Commands.argument("value", com.mojang.brigadier.arguments.IntegerArgumentType.integer(4,200))
-                            .executes(ctx -> { int v = com.mojang.brigadier.arguments.IntegerArgumentType.getInteger(ctx, "value"); Config.get().setAiConversationLimit(v); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_conversation_limit=" + v)); return 1; })
+                            .executes(ctx -> { int v = com.mojang.brigadier.arguments.IntegerArgumentType.getInteger(ctx, "value"); Config.update(c -> c.setAiConversationLimit(v)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_conversation_limit=" + v)); return 1; })
                         )
                     )
                 )
@@ -60,12 +60,12 @@ public final class VMNeoForgeClientCommands {
                 boolean dbg = Config.get().debug();
                 boolean ansOnly = Config.get().observeAnswerOnly();
                 boolean loose = Config.get().autoReplyLoose();
-                Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Mode=" + mode + ", Debug=" + dbg + ", AnswerOnly=" + ansOnly + ", LooseReply=" + loose));
+                Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Mode=" + mode + ", Debug=" + dbg + ", AnswerOnly=" + ansOnly + ", LooseReply=" + loose + ", Decisions(" + ctrl.decisionStats() + "), Conn(" + ctrl.connectionStats() + ")"));
                 return 1;
             }))
             .then(Commands.literal("debug")
-                .then(Commands.literal("on").executes(ctx -> { Config.get().setDebug(true); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Debug ON")); return 1; }))
-                .then(Commands.literal("off").executes(ctx -> { Config.get().setDebug(false); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Debug OFF")); return 1; }))
+                .then(Commands.literal("on").executes(ctx -> { Config.update(c -> c.setDebug(true)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Debug ON")); return 1; }))
+                .then(Commands.literal("off").executes(ctx -> { Config.update(c -> c.setDebug(false)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Debug OFF")); return 1; }))
                 .then(Commands.literal("status").executes(ctx -> { Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Debug=" + Config.get().debug())); return 1; }))
             )
             .then(Commands.literal("now").executes(ctx -> { ClientInit.getController().triggerDecisionNow(Minecraft.getInstance()); return 1; }))
@@ -76,7 +76,7 @@ public final class VMNeoForgeClientCommands {
                 .then(Commands.literal("get").executes(ctx -> { Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Target lock radius=" + Config.get().targetLockRadius())); return 1; }))
                 .then(Commands.literal("set")
                     .then(Commands.argument("value", com.mojang.brigadier.arguments.IntegerArgumentType.integer(1,128))
-                        .executes(ctx -> { int v = com.mojang.brigadier.arguments.IntegerArgumentType.getInteger(ctx, "value"); Config.get().setTargetLockRadius(v); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Target lock radius=" + v)); return 1; })
+                        .executes(ctx -> { int v = com.mojang.brigadier.arguments.IntegerArgumentType.getInteger(ctx, "value"); Config.update(c -> c.setTargetLockRadius(v)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] Target lock radius=" + v)); return 1; })
                     )
                 )
             )
@@ -85,7 +85,7 @@ public final class VMNeoForgeClientCommands {
                     .then(Commands.literal("get").executes(ctx -> { Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_chat_dedup_ticks=" + Config.get().aiChatDedupTicks())); return 1; }))
                     .then(Commands.literal("set")
                         .then(Commands.argument("value", com.mojang.brigadier.arguments.IntegerArgumentType.integer(20,20000))
-                            .executes(ctx -> { int v = com.mojang.brigadier.arguments.IntegerArgumentType.getInteger(ctx, "value"); Config.get().setAiChatDedupTicks(v); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_chat_dedup_ticks=" + v)); return 1; })
+                            .executes(ctx -> { int v = com.mojang.brigadier.arguments.IntegerArgumentType.getInteger(ctx, "value"); Config.update(c -> c.setAiChatDedupTicks(v)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_chat_dedup_ticks=" + v)); return 1; })
                         )
                     )
                 )
@@ -93,29 +93,39 @@ public final class VMNeoForgeClientCommands {
                     .then(Commands.literal("get").executes(ctx -> { Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_chat_min_interval_ticks=" + Config.get().aiChatMinIntervalTicks())); return 1; }))
                     .then(Commands.literal("set")
                         .then(Commands.argument("value", com.mojang.brigadier.arguments.IntegerArgumentType.integer(0,2000))
-                            .executes(ctx -> { int v = com.mojang.brigadier.arguments.IntegerArgumentType.getInteger(ctx, "value"); Config.get().setAiChatMinIntervalTicks(v); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_chat_min_interval_ticks=" + v)); return 1; })
+                            .executes(ctx -> { int v = com.mojang.brigadier.arguments.IntegerArgumentType.getInteger(ctx, "value"); Config.update(c -> c.setAiChatMinIntervalTicks(v)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_chat_min_interval_ticks=" + v)); return 1; })
                         )
                     )
                 )
                 .then(Commands.literal("autoreply")
-                    .then(Commands.literal("on").executes(ctx -> { Config.get().setAiAutoReply(true); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] AI auto reply ON")); return 1; }))
-                    .then(Commands.literal("off").executes(ctx -> { Config.get().setAiAutoReply(false); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] AI auto reply OFF")); return 1; }))
+                    .then(Commands.literal("on").executes(ctx -> { Config.update(c -> c.setAiAutoReply(true)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] AI auto reply ON")); return 1; }))
+                    .then(Commands.literal("off").executes(ctx -> { Config.update(c -> c.setAiAutoReply(false)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] AI auto reply OFF")); return 1; }))
                     .then(Commands.literal("status").executes(ctx -> { Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] ai_auto_reply=" + Config.get().aiAutoReply())); return 1; }))
                 )
                 .then(Commands.literal("answeronly")
-                    .then(Commands.literal("on").executes(ctx -> { Config.get().setObserveAnswerOnly(true); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] observe_answer_only=ON")); return 1; }))
-                    .then(Commands.literal("off").executes(ctx -> { Config.get().setObserveAnswerOnly(false); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] observe_answer_only=OFF")); return 1; }))
+                    .then(Commands.literal("on").executes(ctx -> { Config.update(c -> c.setObserveAnswerOnly(true)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] observe_answer_only=ON")); return 1; }))
+                    .then(Commands.literal("off").executes(ctx -> { Config.update(c -> c.setObserveAnswerOnly(false)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] observe_answer_only=OFF")); return 1; }))
                     .then(Commands.literal("status").executes(ctx -> { Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] observe_answer_only=" + Config.get().observeAnswerOnly())); return 1; }))
                 )
                 .then(Commands.literal("loosereply")
-                    .then(Commands.literal("on").executes(ctx -> { Config.get().setAutoReplyLoose(true); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] auto_reply_loose=ON")); return 1; }))
-                    .then(Commands.literal("off").executes(ctx -> { Config.get().setAutoReplyLoose(false); Config.save(); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] auto_reply_loose=OFF")); return 1; }))
+                    .then(Commands.literal("on").executes(ctx -> { Config.update(c -> c.setAutoReplyLoose(true)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] auto_reply_loose=ON")); return 1; }))
+                    .then(Commands.literal("off").executes(ctx -> { Config.update(c -> c.setAutoReplyLoose(false)); Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] auto_reply_loose=OFF")); return 1; }))
                     .then(Commands.literal("status").executes(ctx -> { Minecraft.getInstance().gui.getChat().addMessage(Component.literal("[VoxelMind] auto_reply_loose=" + Config.get().autoReplyLoose())); return 1; }))
                 )
             )
             .then(Commands.literal("sstest").executes(ctx -> {
                 var mc = Minecraft.getInstance();
-                ScreenshotUtil.captureAsync(mc, data -> mc.execute(() -> mc.gui.getChat().addMessage(Component.literal("[VoxelMind] sstest bytes=" + (data==null?"null":data.length)))));
+                ScreenshotUtil.captureAsync(mc, data -> mc.execute(() -> mc.gui.getChat().addMessage(Component.literal("[VoxelMind] sstest bytes=" + (data==null?"null":data.size() + " (" + data.mimeType() + " " + data.width() + "x" + data.height() + ")")))));
+                return 1;
+            }))
+            .then(Commands.literal("ssbench").executes(ctx -> {
+                var mc = Minecraft.getInstance();
+                mc.gui.getChat().addMessage(Component.literal("[VoxelMind] ssbench running..."));
+                Thread t = new Thread(() -> {
+                    String res = ScreenshotUtil.benchmarkPixelCopy() + " | encode " + ScreenshotUtil.benchmarkEncoders();
+                    mc.execute(() -> mc.gui.getChat().addMessage(Component.literal("[VoxelMind] ssbench " + res)));
+                }, "VoxelMind-SSBench");
+                t.setDaemon(true); t.start();
                 return 1;
             }))
             .then(Commands.literal("ssinfo").executes(ctx -> {